@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package jp.s64.android.navigationbarview.benchmark;
+
+import jp.s64.android.navigationbarview.model.ListDiff;
+
+public final class Item {
+
+    public static final ListDiff.IdFunction<Item> ID_FUNCTION = new ListDiff.IdFunction<Item>() {
+        @Override
+        public int getId(Item item) {
+            return item.id;
+        }
+    };
+
+    public final int id;
+
+    public Item(int id) {
+        this.id = id;
+    }
+
+    public static Item[] create(int count) {
+        Item[] ret = new Item[count];
+        for (int i = 0; i < count; i++) {
+            ret[i] = new Item(i + 1);
+        }
+        return ret;
+    }
+
+}
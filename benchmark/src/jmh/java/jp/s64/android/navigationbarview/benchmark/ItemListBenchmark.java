@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package jp.s64.android.navigationbarview.benchmark;
+
+import com.google.common.collect.ImmutableList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import jp.s64.android.navigationbarview.model.ItemList;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemListBenchmark {
+
+    @Param({"3", "5", "10", "50"})
+    public int itemCount;
+
+    private Item[] mItems;
+    private Item mReplacement;
+    private ItemList<Item> mList;
+
+    private ImmutableList<Item> mLastItems;
+    private boolean mReplaced;
+
+    private final ItemList.Listener<Item> mListener = new ItemList.Listener<Item>() {
+        @Override
+        public void onItemsChanged(ImmutableList<Item> oldItems, ImmutableList<Item> newItems) {
+            mLastItems = newItems;
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        mItems = Item.create(itemCount);
+        mReplacement = new Item(itemCount / 2 + 1);
+        mList = new ItemList<>(mListener);
+        mList.add(mItems);
+        mReplaced = false;
+    }
+
+    @Benchmark
+    public ItemList<Item> addAll() {
+        ItemList<Item> ret = new ItemList<>(mListener);
+        ret.add(mItems);
+        return ret;
+    }
+
+    @Benchmark
+    public ItemList<Item> addOneByOne() {
+        ItemList<Item> ret = new ItemList<>(mListener);
+        for (Item item : mItems) {
+            ret.add(item);
+        }
+        return ret;
+    }
+
+    // removes the last item and puts it back, so every invocation sees the same list.
+    @Benchmark
+    public ImmutableList<Item> removeAndAdd() {
+        Item last = mItems[itemCount - 1];
+        mList.remove(last);
+        mList.add(last);
+        return mLastItems;
+    }
+
+    @Benchmark
+    public ImmutableList<Item> removeAtAndAdd() {
+        mList.remove(itemCount - 1);
+        mList.add(mItems[itemCount - 1]);
+        return mLastItems;
+    }
+
+    // alternates the middle item between two instances sharing an id.
+    @Benchmark
+    public ImmutableList<Item> replace() {
+        int index = itemCount / 2;
+        mList.replace(index, mReplaced ? mItems[index] : mReplacement);
+        mReplaced = !mReplaced;
+        return mLastItems;
+    }
+
+    @Benchmark
+    public ImmutableList<Item> batch() {
+        Item last = mItems[itemCount - 1];
+        mList.beginBatch();
+        try {
+            mList.remove(last);
+            mList.add(last);
+        } finally {
+            mList.commit();
+        }
+        return mLastItems;
+    }
+
+    @Benchmark
+    public int lookupIndexOf() {
+        return mList.indexOf(mItems[itemCount - 1]);
+    }
+
+    @Benchmark
+    public Item lookupGet() {
+        return mList.get(itemCount / 2);
+    }
+
+    @Benchmark
+    public boolean lookupContains() {
+        return mList.contains(mItems[itemCount - 1]);
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package jp.s64.android.navigationbarview.benchmark;
+
+import com.google.common.collect.ImmutableList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import jp.s64.android.navigationbarview.model.ListDiff;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ListDiffBenchmark {
+
+    @Param({"3", "5", "10", "50"})
+    public int itemCount;
+
+    private ImmutableList<Item> mOld;
+    private ImmutableList<Item> mAppended;
+    private ImmutableList<Item> mRemoved;
+    private ImmutableList<Item> mReplaced;
+    private ImmutableList<Item> mReversed;
+    private ImmutableList<Item> mShuffled;
+
+    @Setup
+    public void setUp() {
+        Item[] items = Item.create(itemCount);
+        mOld = ImmutableList.copyOf(items);
+        {
+            mAppended = ImmutableList.<Item>builder().addAll(mOld).add(new Item(itemCount + 1)).build();
+        }
+        {
+            List<Item> removed = new ArrayList<>(mOld);
+            removed.remove(itemCount / 2);
+            mRemoved = ImmutableList.copyOf(removed);
+        }
+        {
+            List<Item> replaced = new ArrayList<>(mOld);
+            replaced.set(itemCount / 2, new Item(items[itemCount / 2].id));
+            mReplaced = ImmutableList.copyOf(replaced);
+        }
+        {
+            mReversed = mOld.reverse();
+        }
+        {
+            List<Item> shuffled = new ArrayList<>(mOld);
+            Collections.shuffle(shuffled, new Random(itemCount));
+            mShuffled = ImmutableList.copyOf(shuffled);
+        }
+    }
+
+    @Benchmark
+    public ListDiff<Item> identical() {
+        return ListDiff.calculate(mOld, mOld, Item.ID_FUNCTION);
+    }
+
+    @Benchmark
+    public ListDiff<Item> appendOne() {
+        return ListDiff.calculate(mOld, mAppended, Item.ID_FUNCTION);
+    }
+
+    @Benchmark
+    public ListDiff<Item> removeOne() {
+        return ListDiff.calculate(mOld, mRemoved, Item.ID_FUNCTION);
+    }
+
+    @Benchmark
+    public ListDiff<Item> rebindOne() {
+        return ListDiff.calculate(mOld, mReplaced, Item.ID_FUNCTION);
+    }
+
+    @Benchmark
+    public ListDiff<Item> reverse() {
+        return ListDiff.calculate(mOld, mReversed, Item.ID_FUNCTION);
+    }
+
+    @Benchmark
+    public ListDiff<Item> shuffle() {
+        return ListDiff.calculate(mOld, mShuffled, Item.ID_FUNCTION);
+    }
+
+}
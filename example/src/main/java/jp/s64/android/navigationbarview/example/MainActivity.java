@@ -150,8 +150,14 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
     }
 
     private void refreshItems() {
-        for (int i = 0; i < mNavigation.size(); i++) {
-            mNavigation.replace(i, createItem(i));
+        mNavigation.beginBatch();
+        try {
+            mNavigation.setIconAtlasEnabled(!mIconModeIsTintable);
+            for (int i = 0; i < mNavigation.size(); i++) {
+                mNavigation.replace(i, createItem(i));
+            }
+        } finally {
+            mNavigation.commit();
         }
         resetButtonState();
     }
@@ -0,0 +1,158 @@
+package jp.s64.android.navigationbarview;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.support.annotation.IdRes;
+import android.support.annotation.LayoutRes;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import jp.s64.android.navigationbarview.bottom.BottomNavigationBarView;
+import jp.s64.android.navigationbarview.item.AbsNavigationBarItem;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the time from inflating a bar and adding its items to its first frame, for an eagerly and a
+ * lazily initialized bar. The lazy bar creates its item views only after that frame was drawn, so it has
+ * to get there faster. Results are written to logcat with the "StartupBenchmark" tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final String TAG = "StartupBenchmark";
+
+    private static final int WARMUP = 10;
+    private static final int ITERATIONS = 100;
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 400;
+
+    private static final int[] IDS = {1, 2, 3, 4};
+
+    @Test
+    public void lazyBarReachesTheFirstFrameFaster() throws Exception {
+        final Context context = new ContextThemeWrapper(InstrumentationRegistry.getContext(), R.style.Theme_AppCompat_Light);
+        final long[] results = new long[2];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                results[0] = median(context, jp.s64.android.navigationbarview.test.R.layout.benchmark_startup_eager);
+                results[1] = median(context, jp.s64.android.navigationbarview.test.R.layout.benchmark_startup_lazy);
+            }
+        });
+        Log.i(TAG, String.format(Locale.ROOT, "inflate-to-first-frame: eager=%dus, lazy=%dus", results[0] / 1000, results[1] / 1000));
+        assertTrue(
+                String.format(Locale.ROOT, "lazy bar took %dus to its first frame, eager bar %dus", results[1] / 1000, results[0] / 1000),
+                results[1] < results[0]
+        );
+    }
+
+    @Test
+    public void lazyBarIsNotInitializedByTheFirstFrame() throws Exception {
+        final Context context = new ContextThemeWrapper(InstrumentationRegistry.getContext(), R.style.Theme_AppCompat_Light);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                BottomNavigationBarView bar = (BottomNavigationBarView) LayoutInflater.from(context)
+                        .inflate(jp.s64.android.navigationbarview.test.R.layout.benchmark_startup_lazy, null, false);
+                setUpItems(bar);
+                frame(bar, new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888)));
+
+                assertFalse(bar.isInitialized());
+                assertNull(bar.getItemView(IDS[0]));
+                assertEquals(IDS.length, bar.size());
+                assertEquals(IDS[0], bar.getChecked());
+                assertEquals(bar.getMetrics().itemHeight, bar.getHeight());
+            }
+        });
+    }
+
+    private static long median(Context context, @LayoutRes int layout) {
+        final LayoutInflater inflater = LayoutInflater.from(context);
+        final Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        for (int i = 0; i < WARMUP; i++) {
+            run(inflater, layout, canvas);
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            run(inflater, layout, canvas);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[ITERATIONS / 2];
+    }
+
+    // as an activity's onCreate() would: inflate, add the items, check one, then the first frame.
+    private static void run(LayoutInflater inflater, @LayoutRes int layout, Canvas canvas) {
+        BottomNavigationBarView bar = (BottomNavigationBarView) inflater.inflate(layout, null, false);
+        setUpItems(bar);
+        frame(bar, canvas);
+    }
+
+    private static void setUpItems(BottomNavigationBarView bar) {
+        for (int id : IDS) {
+            bar.add(new Item(id));
+        }
+        bar.check(IDS[0]);
+    }
+
+    // the bar is not attached to a window, so the deferred init, which follows the first draw, is left out.
+    private static void frame(View root, Canvas canvas) {
+        root.measure(
+                View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.AT_MOST)
+        );
+        root.layout(0, 0, root.getMeasuredWidth(), root.getMeasuredHeight());
+        root.draw(canvas);
+    }
+
+    private static class Item extends AbsNavigationBarItem {
+
+        @IdRes
+        private final int mIdRes;
+
+        Item(@IdRes int idRes) {
+            mIdRes = idRes;
+        }
+
+        @Override
+        public int getIdRes() {
+            return mIdRes;
+        }
+
+        @Override
+        public String getText(boolean isChecked) {
+            return "Item " + mIdRes;
+        }
+
+        @Override
+        public int getTextColorInt(boolean isChecked) {
+            return isChecked ? 0xff3f51b5 : 0xff757575;
+        }
+
+        @Override
+        public int getDrawableIdRes(boolean isChecked) {
+            return android.R.drawable.ic_menu_add;
+        }
+
+        @Override
+        public Integer getColorInt(boolean isChecked) {
+            return isChecked ? 0xff3f51b5 : 0xff757575;
+        }
+
+    }
+
+}
@@ -16,11 +16,9 @@
 
 package jp.s64.android.navigationbarview.bottom;
 
-import android.animation.Animator;
-import android.animation.ArgbEvaluator;
 import android.animation.TimeInterpolator;
-import android.animation.ValueAnimator;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.os.Build;
 import android.support.annotation.AttrRes;
@@ -28,42 +26,69 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.RequiresApi;
 import android.support.annotation.StyleRes;
+import android.support.v4.view.ViewCompat;
 import android.support.v4.view.animation.FastOutSlowInInterpolator;
+import android.support.v7.widget.AppCompatTextView;
+import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.TypedValue;
 import android.view.View;
-import android.widget.FrameLayout;
-import android.widget.RelativeLayout;
 import android.widget.TextView;
 
 import jp.s64.android.navigationbarview.R;
+import jp.s64.android.navigationbarview.item.AbsNavigationBarItem;
+import jp.s64.android.navigationbarview.item.ColorRamp;
 import jp.s64.android.navigationbarview.item.INavigationBarItem;
 import jp.s64.android.navigationbarview.view.INavigationBarItemView;
+import jp.s64.android.navigationbarview.view.INavigationBarView;
+import jp.s64.android.navigationbarview.view.NavigationBarTrace;
 import jp.s64.android.radiobuttonextended.core.widget.RadioFrameLayout;
 
 public class BottomNavigationBarItemView extends RadioFrameLayout implements INavigationBarItemView {
 
-    private RelativeLayout mContainer;
-    private FrameLayout mImageWrapper;
-    private FrameLayout mTextWrapper;
+    @Nullable
+    private View mIcon;
     private TextView mText;
 
+    private int mIconBottomInset = 0;
+    private int mTextBottomInset = 0;
+
     private INavigationBarItem mItem;
 
     private Integer inactiveWidth = null;
     private Integer activeWidth = null;
     private Integer height = null;
 
-    private Float mActiveTextScale, mInactiveTextScale, mDisableTextScale;
+    private boolean mLayoutDirty = true;
+    private int mLastWidthMeasureSpec, mLastHeightMeasureSpec;
+
+    @Nullable
+    private BottomNavigationBarMetrics mMetrics = null;
+    private boolean mOwnsMetrics = false;
 
     private TimeInterpolator mInterpolator;
     private Long mDuration;
 
-    private Integer mTextUnderPaddingVisible, mTextUnderPaddingGone;
+    private boolean mOldIsChecked = false;
 
-    private Integer mTextSize;
+    private CheckAnimationEngine mAnimationEngine;
+    private LayerAnimatorListener mTextLayer;
 
-    private boolean mOldIsChecked = false;
+    @Nullable
+    private INavigationBarView.PerformanceListener mPerformanceListener = null;
+
+    @Nullable
+    private View mNavigationBar = null;
+
+    private boolean mAnimationsSuppressed = false;
+    private final ReusableIconAnimator mIconAnimator = new ReusableIconAnimator();
+
+    private boolean mAnimatingIsChecked, mAnimatingOldIsChecked;
+    private float mFromTextAlpha, mToTextAlpha;
+    private float mFromTextScale, mToTextScale;
+    private final ColorRamp mTextColorRamp = new ColorRamp();
+    private boolean mTextColorAnimating;
+    private int mIconSize;
 
     public BottomNavigationBarItemView(@NonNull Context context) {
         super(context);
@@ -88,27 +113,35 @@ public class BottomNavigationBarItemView extends RadioFrameLayout implements INa
 
     protected void init() {
         {
-            mActiveTextScale = getFloat(getResources(), R.dimen.active_item_with_text_text_scale);
-            mInactiveTextScale = getFloat(getResources(), R.dimen.inactive_item_with_text_text_scale);
-            mDisableTextScale = getFloat(getResources(), R.dimen.item_without_text_text_scale);
+            mAnimationEngine = new CheckAnimationEngine(new CheckAnimationEngine.Callback() {
+                @Override
+                public void onAnimationFrame(float fraction) {
+                    BottomNavigationBarItemView.this.onAnimationFrame(fraction);
+                }
+            });
         }
         {
             setInterpolator(new FastOutSlowInInterpolator());
             setDuration(115l);
         }
         {
-            mTextUnderPaddingVisible = getResources().getDimensionPixelSize(R.dimen.item_with_text_under_padding);
-            mTextUnderPaddingGone = getResources().getDimensionPixelSize(R.dimen.item_without_text_under_padding);
+            setClipChildren(false);
+            setClipToPadding(false);
         }
         {
-            mTextSize = getResources().getDimensionPixelSize(R.dimen.item_text_size);
+            TypedValue value = new TypedValue();
+            if (getContext().getTheme().resolveAttribute(R.attr.selectableItemBackgroundBorderless, value, true) && value.resourceId != 0) {
+                setBackgroundResource(value.resourceId);
+            }
+        }
+        {
+            mText = new AppCompatTextView(getContext());
+            mText.setIncludeFontPadding(false);
+            addView(mText, new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT));
         }
-        inflate(getContext(), R.layout.view_bottom_navigation_bar_item, this);
         {
-            mContainer = (RelativeLayout) findViewById(R.id.root);
-            mImageWrapper = (FrameLayout) findViewById(R.id.icon_wrapper);
-            mTextWrapper = (FrameLayout) findViewById(R.id.text_wrapper);
-            mText = (TextView) findViewById(R.id.text);
+            mTextLayer = new LayerAnimatorListener(null);
+            mAnimationEngine.addListener(mTextLayer);
         }
         resetLayout();
     }
@@ -116,43 +149,147 @@ public class BottomNavigationBarItemView extends RadioFrameLayout implements INa
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         if (inactiveWidth != null && activeWidth != null && height != null) {
-            super.onMeasure(
-                    MeasureSpec.makeMeasureSpec(getMeasuringWidth(), MeasureSpec.EXACTLY),
-                    MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY)
-            );
+            int w = MeasureSpec.makeMeasureSpec(getMeasuringWidth(), MeasureSpec.EXACTLY),
+                    h = MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY);
+            if (!mLayoutDirty && w == mLastWidthMeasureSpec && h == mLastHeightMeasureSpec) {
+                setMeasuredDimension(MeasureSpec.getSize(w), MeasureSpec.getSize(h));
+                return;
+            }
+            measureChildren(w, h);
+            setMeasuredDimension(MeasureSpec.getSize(w), MeasureSpec.getSize(h));
+            {
+                mLastWidthMeasureSpec = w;
+                mLastHeightMeasureSpec = h;
+                mLayoutDirty = false;
+            }
         } else {
-            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            measureChildren(widthMeasureSpec, heightMeasureSpec);
+            int contentWidth, contentHeight;
+            {
+                int iconWidth = isVisibleChild(mIcon) ? mIcon.getMeasuredWidth() : 0,
+                        iconHeight = isVisibleChild(mIcon) ? mIcon.getMeasuredHeight() : 0;
+                contentWidth = Math.max(iconWidth, mText.getMeasuredWidth());
+                contentHeight = Math.max(iconHeight + mIconBottomInset, mText.getMeasuredHeight() + mTextBottomInset);
+            }
+            setMeasuredDimension(
+                    resolveSize(contentWidth + getPaddingLeft() + getPaddingRight(), widthMeasureSpec),
+                    resolveSize(contentHeight + getPaddingTop() + getPaddingBottom(), heightMeasureSpec)
+            );
+            mLayoutDirty = true;
         }
     }
 
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        final int width = right - left, height = bottom - top;
+        final int centerX = (getPaddingLeft() + width - getPaddingRight()) / 2;
+        if (isVisibleChild(mIcon)) {
+            int iconWidth = mIcon.getMeasuredWidth(), iconHeight = mIcon.getMeasuredHeight();
+            int iconLeft = centerX - iconWidth / 2,
+                    iconTop = (height - (iconHeight + mIconBottomInset)) / 2;
+            mIcon.layout(iconLeft, iconTop, iconLeft + iconWidth, iconTop + iconHeight);
+        }
+        if (mText.getVisibility() != GONE) {
+            int textWidth = mText.getMeasuredWidth(), textHeight = mText.getMeasuredHeight();
+            int textLeft = centerX - textWidth / 2,
+                    textBottom = height - mTextBottomInset;
+            mText.layout(textLeft, textBottom - textHeight, textLeft + textWidth, textBottom);
+        }
+    }
+
+    private static boolean isVisibleChild(@Nullable View child) {
+        return child != null && child.getVisibility() != GONE;
+    }
+
+    @Override
+    public void requestLayout() {
+        mLayoutDirty = true;
+        super.requestLayout();
+        if (mPerformanceListener != null) {
+            mPerformanceListener.onItemLayoutRequested(mNavigationBar, this);
+        }
+    }
+
+    @Override
+    public void forceLayout() {
+        mLayoutDirty = true;
+        super.forceLayout();
+    }
+
     protected Integer getMeasuringWidth() {
         return isChecked() ? activeWidth : inactiveWidth;
     }
 
     @Override
     public void setWidth(int inactive, int active) {
+        Integer oldWidth = getMeasuringWidth();
         {
             this.inactiveWidth = inactive;
             this.activeWidth = active;
         }
-        requestLayout();
+        if (!equal(oldWidth, getMeasuringWidth())) {
+            requestLayout();
+        }
     }
 
     @Override
     public void setHeight(int height) {
+        if (equal(this.height, height)) {
+            return;
+        }
         this.height = height;
         requestLayout();
     }
 
+    public void setMetrics(BottomNavigationBarMetrics metrics) {
+        if (mMetrics == metrics) {
+            return;
+        }
+        {
+            mMetrics = metrics;
+            mOwnsMetrics = false;
+        }
+        resetLayout();
+        requestLayout();
+    }
+
+    public BottomNavigationBarMetrics getMetrics() {
+        if (mMetrics == null) {
+            mMetrics = new BottomNavigationBarMetrics(getResources());
+            mOwnsMetrics = true;
+        }
+        return mMetrics;
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        if (mOwnsMetrics) {
+            mMetrics = null;
+            resetLayout();
+        }
+    }
+
     @Override
     public void setChecked(boolean isChecked) {
+        if (isChecked() == isChecked) {
+            super.setChecked(isChecked);
+            return;
+        }
+        Integer oldWidth = getMeasuringWidth();
         super.setChecked(isChecked);
         resetLayout();
-        requestLayout();
+        if (!equal(oldWidth, getMeasuringWidth())) {
+            requestLayout();
+        }
     }
 
     @Override
     public void setItem(INavigationBarItem item) {
+        if (mItem != null && mItem != item && mIcon != null) {
+            removeView(mIcon);
+            mIcon = null;
+        }
         {
             mItem = item;
         }
@@ -160,164 +297,218 @@ public class BottomNavigationBarItemView extends RadioFrameLayout implements INa
         resetLayout();
     }
 
-    protected void resetLayout() {
-        if (mItem == null || mContainer == null || mText == null) {
-            return;
+    public void refreshIcon() {
+        if (mItem != null && !mAnimationEngine.isRunning()) {
+            onAnimationFrame(1f);
         }
-        final boolean oldWithTextState;
-        final float oldScale;
+    }
+
+    public void recycle() {
         {
-            oldWithTextState = mText.getAlpha() != 0f;
-            oldScale = mText.getScaleX();
+            mAnimationEngine.cancel();
+            mItem = null;
+            mOldIsChecked = false;
+            setId(View.NO_ID);
+        }
+        if (mIcon != null) {
+            removeView(mIcon);
+            mIcon = null;
         }
-        final boolean isChecked = isChecked();
-        boolean withText;
         {
-            String text = mItem.getText(isChecked);
-            if (text != null) {
-                mText.setText(text);
-                withText = true;
+            mText.setText(null);
+            mText.setAlpha(1f);
+            mText.setScaleX(1f);
+            mText.setScaleY(1f);
+        }
+        setChecked(false);
+    }
+
+    protected void resetLayout() {
+        final boolean trace = NavigationBarTrace.beginSection(NavigationBarTrace.RESET_LAYOUT);
+        try {
+            if (mItem == null || mText == null) {
+                return;
+            }
+            final float oldAlpha, oldScale;
+            {
+                oldAlpha = mText.getAlpha();
+                oldScale = mText.getScaleX();
+            }
+            final BottomNavigationBarMetrics metrics = getMetrics();
+            {
+                if (getPaddingLeft() != metrics.itemHorizontalPadding || getPaddingRight() != metrics.itemHorizontalPadding) {
+                    setPadding(metrics.itemHorizontalPadding, getPaddingTop(), metrics.itemHorizontalPadding, getPaddingBottom());
+                }
+                if (mText.getTextSize() != metrics.textSize) {
+                    mText.setTextSize(TypedValue.COMPLEX_UNIT_PX, metrics.textSize);
+                }
+            }
+            final boolean isChecked = isChecked();
+            boolean withText;
+            {
+                String text = mItem.getText(isChecked);
+                if (text != null) {
+                    // a wrap_content label requests layout on every setText(), even for the same text.
+                    if (!TextUtils.equals(mText.getText(), text)) {
+                        mText.setText(text);
+                    }
+                    withText = true;
+                } else {
+                    withText = false;
+                }
+            }
+            float textScale;
+            {
+                textScale = withText ? (isChecked ? metrics.activeTextScale : metrics.inactiveTextScale) : metrics.disableTextScale;
+            }
+            int textSize = withText ? (int) (metrics.textSize * textScale) : 0;
+            {
+                int padding = withText ? metrics.textUnderPaddingVisible : metrics.textUnderPaddingGone;
+                int iconBottomInset = padding + textSize, textBottomInset = metrics.textUnderPaddingVisible;
+                if (mIconBottomInset != iconBottomInset || mTextBottomInset != textBottomInset) {
+                    mIconBottomInset = iconBottomInset;
+                    mTextBottomInset = textBottomInset;
+                    requestLayout();
+                }
+            }
+            {
+                mFromTextAlpha = oldAlpha;
+                mToTextAlpha = withText ? 1f : 0f;
+                mFromTextScale = oldScale;
+                mToTextScale = textScale;
+            }
+            {
+                int inactiveColor = mItem.getTextColorInt(false), activeColor = mItem.getTextColorInt(true);
+                mTextColorRamp.set(inactiveColor, activeColor);
+                // a fixed label color never changes, so only alpha and scale animate and the layer stays usable.
+                mTextColorAnimating = mOldIsChecked != isChecked && inactiveColor != activeColor;
+            }
+            if (mItem instanceof AbsNavigationBarItem) {
+                ((AbsNavigationBarItem) mItem).refreshColors();
+            }
+            {
+                Integer iconSize = mItem.getIconPixelSize();
+                mIconSize = iconSize != null ? iconSize : metrics.iconSize;
+            }
+            {
+                mAnimatingIsChecked = isChecked;
+                mAnimatingOldIsChecked = mOldIsChecked;
+                mOldIsChecked = isChecked;
+            }
+            {
+                // a layer only pays off while the label is not recolored on every frame.
+                boolean textAnimating = mFromTextAlpha != mToTextAlpha || mFromTextScale != mToTextScale;
+                mTextLayer.setView(textAnimating && !mTextColorAnimating ? mText : null);
+            }
+            if (shouldAnimate()) {
+                mAnimationEngine.start(mDuration, mInterpolator);
             } else {
-                withText = false;
+                mAnimationEngine.cancel();
+                onAnimationFrame(1f);
             }
+        } finally {
+            NavigationBarTrace.endSection(trace);
         }
-        float textScale;
-        {
-            textScale = withText ? (isChecked ? mActiveTextScale : mInactiveTextScale) : mDisableTextScale;
-        }
-        int textSize = withText ? (int) (mTextSize * textScale) : 0;
+    }
+
+    protected void onAnimationFrame(float fraction) {
         {
-            int padding = withText ? mTextUnderPaddingVisible : mTextUnderPaddingGone;
-            mImageWrapper.setPadding(
-                    mImageWrapper.getPaddingLeft(),
-                    mImageWrapper.getPaddingTop(),
-                    mImageWrapper.getPaddingRight(),
-                    padding + textSize
-            );
+            mText.setAlpha(mFromTextAlpha + (mToTextAlpha - mFromTextAlpha) * fraction);
         }
         {
-            mTextWrapper.setPadding(
-                    mTextWrapper.getPaddingLeft(),
-                    mTextWrapper.getPaddingTop(),
-                    mTextWrapper.getPaddingRight(),
-                    mTextUnderPaddingVisible
-            );
+            float scale = mFromTextScale + (mToTextScale - mFromTextScale) * fraction;
+            mText.setScaleX(scale);
+            mText.setScaleY(scale);
         }
-        final ValueAnimator fraction, aTextAlpha, aTextScale;
         {
-            aTextAlpha = ValueAnimator.ofFloat(
-                    oldWithTextState ? 1f : 0f,
-                    withText ? 1f : 0f
-            );
-            aTextAlpha.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                @Override
-                public void onAnimationUpdate(ValueAnimator animation) {
-                    mText.setAlpha((Float) animation.getAnimatedValue());
+            final boolean trace = NavigationBarTrace.beginSection(NavigationBarTrace.UPDATE_ICON);
+            View newIcon;
+            try {
+                newIcon = mItem.updateIcon(
+                        mIcon,
+                        getContext(),
+                        mIconSize,
+                        mIconSize,
+                        mIconAnimator.update(mAnimatingIsChecked, mAnimatingOldIsChecked, fraction)
+                );
+            } finally {
+                NavigationBarTrace.endSection(trace);
+            }
+            if (mIcon != newIcon) {
+                if (mIcon != null) {
+                    removeView(mIcon);
                 }
-            });
+                mIcon = newIcon;
+                addView(newIcon, 0);
+            }
         }
         {
-            aTextScale = ValueAnimator.ofFloat(
-                    oldScale,
-                    textScale
-            );
-            aTextScale.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                @Override
-                public void onAnimationUpdate(ValueAnimator animation) {
-                    mText.setScaleX((Float) animation.getAnimatedValue());
-                    mText.setScaleY((Float) animation.getAnimatedValue());
-                }
-            });
+            float colorFraction = mTextColorAnimating ? fraction : 1f;
+            int color = mTextColorRamp.get(colorFraction, mAnimatingIsChecked);
+            if (color != mText.getCurrentTextColor()) {
+                mText.setTextColor(mTextColorRamp.getList(colorFraction, mAnimatingIsChecked));
+            }
         }
-        final boolean oldIsChecked = Boolean.valueOf(mOldIsChecked);
-        {
-            fraction = ValueAnimator.ofFloat(0, 1);
-            fraction.setDuration(mDuration);
-            fraction.setInterpolator(mInterpolator);
-            fraction.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                @Override
-                public void onAnimationUpdate(ValueAnimator animation) {
-                    {
-                        View original = null, newIcon;
-                        for (int i = 0; i < mImageWrapper.getChildCount(); i++) {
-                            View view = mImageWrapper.getChildAt(i);
-                            if (original == null) {
-                                original = view;
-                            } else {
-                                mImageWrapper.removeView(view);
-                            }
-                        }
-                        Integer iconSize = mItem.getIconPixelSize();
-                        newIcon = mItem.updateIcon(
-                                original,
-                                getContext(),
-                                iconSize != null ? iconSize : getResources().getDimensionPixelSize(R.dimen.item_icon_size),
-                                iconSize != null ? iconSize : getResources().getDimensionPixelSize(R.dimen.item_icon_size),
-                                new INavigationBarItem.IconAnimator(isChecked, oldIsChecked, animation.getAnimatedFraction())
-                        );
-                        if (original != newIcon) {
-                            mImageWrapper.removeView(original);
-                            mImageWrapper.addView(newIcon);
-                        }
-                    }
-                    {
-                        ArgbEvaluator ev = new ArgbEvaluator();
-                        mText.setTextColor(
-                                (Integer) ev.evaluate(animation.getAnimatedFraction(), mItem.getTextColorInt(oldIsChecked), mItem.getTextColorInt(isChecked))
-                        );
-                    }
-                }
-            });
-            fraction.addListener(new Animator.AnimatorListener() {
-                @Override
-                public void onAnimationStart(Animator animation) {
-                    {
-                        mOldIsChecked = Boolean.valueOf(isChecked);
-                    }
-                    {
-                        aTextAlpha.setDuration(fraction.getDuration());
-                        aTextScale.setDuration(fraction.getDuration());
-                    }
-                    {
-                        aTextAlpha.setInterpolator(fraction.getInterpolator());
-                        aTextScale.setInterpolator(fraction.getInterpolator());
-                    }
-                    {
-                        aTextAlpha.setInterpolator(fraction.getInterpolator());
-                        aTextScale.setInterpolator(fraction.getInterpolator());
-                    }
-                    {
-                        aTextAlpha.start();
-                        aTextScale.start();
-                    }
-                }
+    }
 
-                @Override
-                public void onAnimationEnd(Animator animation) {
+    private static boolean equal(@Nullable Integer a, @Nullable Integer b) {
+        return a == null ? b == null : a.equals(b);
+    }
 
-                }
+    protected static float getFloat(Resources res, int resId) {
+        TypedValue out = new TypedValue();
+        res.getValue(resId, out, true);
+        return out.getFloat();
+    }
 
-                @Override
-                public void onAnimationCancel(Animator animation) {
-                    {
-                        aTextAlpha.cancel();
-                        aTextScale.cancel();
-                    }
-                }
+    public void setHardwareLayersEnabled(boolean enabled) {
+        mTextLayer.setEnabled(enabled);
+    }
 
-                @Override
-                public void onAnimationRepeat(Animator animation) {
+    public boolean isHardwareLayersEnabled() {
+        return mTextLayer.isEnabled();
+    }
 
-                }
-            });
+    public void setOnLayerUsageListener(@Nullable LayerAnimatorListener.OnLayerUsageListener listener) {
+        mTextLayer.setOnLayerUsageListener(listener);
+    }
+
+    public void setAnimationsSuppressed(boolean suppressed) {
+        mAnimationsSuppressed = suppressed;
+        if (suppressed) {
+            mAnimationEngine.end();
         }
-        fraction.start();
     }
 
-    protected static float getFloat(Resources res, int resId) {
-        TypedValue out = new TypedValue();
-        res.getValue(resId, out, true);
-        return out.getFloat();
+    public boolean isAnimationsSuppressed() {
+        return mAnimationsSuppressed;
+    }
+
+    // detached, stopped, hidden and suppressed items jump straight to the checked state.
+    protected boolean shouldAnimate() {
+        return !mAnimationsSuppressed && ViewCompat.isAttachedToWindow(this) && getWindowVisibility() == VISIBLE && isShown();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        if (visibility != VISIBLE) {
+            mAnimationEngine.end();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        mAnimationEngine.end();
+        super.onDetachedFromWindow();
+    }
+
+    public void setPerformanceListener(@Nullable INavigationBarView.PerformanceListener listener, @Nullable View navigationBar) {
+        {
+            mPerformanceListener = listener;
+            mNavigationBar = navigationBar;
+        }
+        mAnimationEngine.setPerformanceListener(listener, navigationBar);
     }
 
     @Override
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jp.s64.android.navigationbarview.bottom;
+
+import android.content.res.Resources;
+import android.util.TypedValue;
+
+import jp.s64.android.navigationbarview.R;
+
+public final class BottomNavigationBarMetrics {
+
+    public final int itemMinWidth;
+    public final int inactiveItemMaxWidth;
+    public final int activeItemMaxWidth;
+    public final int itemHeight;
+    public final int itemHorizontalPadding;
+
+    public final int iconSize;
+    public final int textSize;
+
+    public final int textUnderPaddingVisible;
+    public final int textUnderPaddingGone;
+
+    public final float activeTextScale;
+    public final float inactiveTextScale;
+    public final float disableTextScale;
+
+    public final float elevation;
+
+    public BottomNavigationBarMetrics(Resources res) {
+        {
+            itemMinWidth = res.getDimensionPixelSize(R.dimen.item_min_width);
+            inactiveItemMaxWidth = res.getDimensionPixelSize(R.dimen.inactive_item_max_width);
+            activeItemMaxWidth = res.getDimensionPixelSize(R.dimen.active_item_max_width);
+            itemHeight = res.getDimensionPixelSize(R.dimen.horizontal_height);
+            itemHorizontalPadding = res.getDimensionPixelSize(R.dimen.item_horizontal_padding);
+        }
+        {
+            iconSize = res.getDimensionPixelSize(R.dimen.item_icon_size);
+            textSize = res.getDimensionPixelSize(R.dimen.item_text_size);
+        }
+        {
+            textUnderPaddingVisible = res.getDimensionPixelSize(R.dimen.item_with_text_under_padding);
+            textUnderPaddingGone = res.getDimensionPixelSize(R.dimen.item_without_text_under_padding);
+        }
+        {
+            TypedValue out = new TypedValue();
+            activeTextScale = getFloat(res, R.dimen.active_item_with_text_text_scale, out);
+            inactiveTextScale = getFloat(res, R.dimen.inactive_item_with_text_text_scale, out);
+            disableTextScale = getFloat(res, R.dimen.item_without_text_text_scale, out);
+        }
+        {
+            elevation = res.getDimension(R.dimen.horizontal_elevation);
+        }
+    }
+
+    private static float getFloat(Resources res, int resId, TypedValue out) {
+        res.getValue(resId, out, true);
+        return out.getFloat();
+    }
+
+}
@@ -16,10 +16,9 @@
 
 package jp.s64.android.navigationbarview.bottom;
 
-import android.animation.Animator;
 import android.animation.TimeInterpolator;
-import android.animation.ValueAnimator;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
 import android.os.Build;
 import android.support.annotation.AttrRes;
@@ -29,49 +28,95 @@ import android.support.annotation.Nullable;
 import android.support.annotation.RequiresApi;
 import android.support.annotation.StyleRes;
 import android.support.design.widget.CoordinatorLayout;
-import android.support.transition.AutoTransition;
-import android.support.transition.TransitionManager;
-import android.support.transition.TransitionSet;
 import android.support.v4.view.ViewCompat;
 import android.support.v4.view.animation.FastOutSlowInInterpolator;
 import android.util.AttributeSet;
+import android.util.SparseIntArray;
 import android.view.Gravity;
 import android.view.View;
+import android.view.ViewTreeObserver;
+import android.widget.Checkable;
 import android.widget.FrameLayout;
 import android.widget.RadioGroup;
 
 import com.google.common.collect.ImmutableList;
 
+import java.util.List;
+
 import jp.s64.android.navigationbarview.R;
+import jp.s64.android.navigationbarview.item.AbsNavigationBarItem;
 import jp.s64.android.navigationbarview.item.INavigationBarItem;
+import jp.s64.android.navigationbarview.item.IconAtlas;
 import jp.s64.android.navigationbarview.view.INavigationBarView;
+import jp.s64.android.navigationbarview.view.NavigationBarTrace;
 import jp.s64.android.navigationbarview.view.NavigationBarViewHelper;
+import jp.s64.android.navigationbarview.view.RecycledItemViewPool;
 import jp.s64.android.radiobuttonextended.core.widget.CompoundFrameLayoutRadioGroup;
 
 public class BottomNavigationBarView extends FrameLayout implements INavigationBarView, NavigationBarViewHelper.IListener<BottomNavigationBarItemView> {
 
     private final NavigationBarViewHelper<BottomNavigationBarView, BottomNavigationBarItemView> mHelper = new NavigationBarViewHelper<>(this);
 
-    private TransitionSet mTransitionSet;
+    private WidthTransition mWidthTransition;
 
-    private int mInactiveMinWidth;
-    private int mInactiveMaxWidth;
-    private int mActiveMaxWidth;
-    private int mItemHeight;
+    private BottomNavigationBarMetrics mMetrics;
 
     private boolean mItemWidthFixed = false;
 
+    private boolean mIconAtlasEnabled = false;
+
+    @Nullable
+    private IconAtlas mIconAtlas = null;
+
+    // reused by updateIconAtlas(); the atlas keeps its own copy.
+    private final SparseIntArray mIconAtlasSizes = new SparseIntArray();
+
+    private int mOrientation = RadioGroup.HORIZONTAL;
+    private int mInactiveWidth = 0;
+    private int mActiveWidth = 0;
+
     private CompoundFrameLayoutRadioGroup mItemsContainer;
-    private CompoundFrameLayoutRadioGroup.OnCheckedChangeListener mCheckChanged;
+    private LayerAnimatorListener mItemsLayer;
+
+    private boolean mHardwareLayersEnabled = true;
 
     @Nullable
-    private ValueAnimator mShowAnimator = null;
+    private LayerAnimatorListener.OnLayerUsageListener mLayerUsageListener = null;
 
     @Nullable
-    private ValueAnimator mHideAnimator = null;
+    private PerformanceListener mPerformanceListener = null;
+    private CompoundFrameLayoutRadioGroup.OnCheckedChangeListener mCheckChanged;
+
+    private VisibilityAnimator<BottomNavigationBarView> mVisibilityAnimator;
 
     private OnLayoutChangeListener mInitialLayoutListener;
 
+    private boolean mInitialized = false;
+
+    // nbv_lazyInit: items, animators and listeners are set up right after the first frame is drawn.
+    private boolean mInitDeferred = false;
+
+    @Nullable
+    private ViewTreeObserver.OnPreDrawListener mFirstDrawListener = null;
+
+    private final Runnable mDeferredInit = new Runnable() {
+        @Override
+        public void run() {
+            ensureInitialized();
+        }
+    };
+
+    // check() before the deferred init; reported right away, applied to the items once they exist.
+    @IdRes
+    private int mPendingCheckedId = View.NO_ID;
+
+    private boolean mItemAnimationsSuppressed = false;
+
+    private long mDuration = 200l;
+
+    @Nullable
+    private TimeInterpolator mInterpolator = null;
+
     public BottomNavigationBarView(@NonNull Context context) {
         super(context, null);
         init(null, 0, 0);
@@ -94,35 +139,81 @@ public class BottomNavigationBarView extends FrameLayout implements INavigationB
     }
 
     protected void init(@Nullable AttributeSet attrs, @AttrRes int defStyleAttr, @StyleRes int defStyleRes) {
+        boolean lazyInit;
         {
-            mInitialLayoutListener = new OnLayoutChangeListener() {
-                @Override
-                public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft, int oldTop, int oldRight, int oldBottom) {
-                    removeOnLayoutChangeListener(mInitialLayoutListener);
-                    add(); // empty adding
+            TypedArray a = null;
+            try {
+                a = getContext().obtainStyledAttributes(attrs, R.styleable.BottomNavigationBarView, defStyleAttr, defStyleRes);
+                {
+                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                        float elevation = a.getDimension(R.styleable.BottomNavigationBarView_android_elevation, getResources().getDimension(R.dimen.horizontal_elevation));
+                        ViewCompat.setElevation(this, elevation);
+                    }
                 }
-            };
-            addOnLayoutChangeListener(mInitialLayoutListener);
+                {
+                    mOrientation = a.getInteger(R.styleable.BottomNavigationBarView_android_orientation, RadioGroup.HORIZONTAL);
+                }
+                {
+                    lazyInit = a.getBoolean(R.styleable.BottomNavigationBarView_nbv_lazyInit, false);
+                }
+            } finally {
+                a.recycle();
+            }
         }
         {
-            mInactiveMinWidth = getResources().getDimensionPixelSize(R.dimen.item_min_width);
-            mInactiveMaxWidth = getResources().getDimensionPixelSize(R.dimen.inactive_item_max_width);
-            mActiveMaxWidth = getResources().getDimensionPixelSize(R.dimen.active_item_max_width);
-            mItemHeight = getResources().getDimensionPixelSize(R.dimen.horizontal_height);
+            // measuring the empty bar only needs the item height.
+            mMetrics = new BottomNavigationBarMetrics(getResources());
         }
-        {
-            mTransitionSet = new AutoTransition();
-            mTransitionSet.setOrdering(TransitionSet.ORDERING_TOGETHER);
-            setDuration(200l);
-            setInterpolator(new FastOutSlowInInterpolator());
+        if (lazyInit) {
+            mInitDeferred = true;
+        } else {
+            ensureInitialized();
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (mInitialized || !mInitDeferred || mFirstDrawListener != null) {
+            return;
+        }
+        mFirstDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                removeFirstDrawListener();
+                // posted from the first traversal, so it runs once that frame is drawn.
+                post(mDeferredInit);
+                return true;
+            }
+        };
+        getViewTreeObserver().addOnPreDrawListener(mFirstDrawListener);
+    }
+
+    private void removeFirstDrawListener() {
+        if (mFirstDrawListener == null) {
+            return;
+        }
+        if (getViewTreeObserver().isAlive()) {
+            getViewTreeObserver().removeOnPreDrawListener(mFirstDrawListener);
+        }
+        mFirstDrawListener = null;
+    }
 
+    protected void ensureInitialized() {
+        if (mInitialized) {
+            return;
+        }
+        {
+            mInitialized = true;
+            removeFirstDrawListener();
+            removeCallbacks(mDeferredInit);
         }
         {
             mCheckChanged = new CompoundFrameLayoutRadioGroup.OnCheckedChangeListener() {
 
                 @Override
                 public void onCheckedChanged(CompoundFrameLayoutRadioGroup group, @IdRes int checkedId) {
-                    TransitionManager.beginDelayedTransition(mItemsContainer, mTransitionSet);
+                    beginWidthTransition();
                     {
                         mHelper.onCheckChanged(checkedId);
                     }
@@ -132,34 +223,64 @@ public class BottomNavigationBarView extends FrameLayout implements INavigationB
         }
         {
             mItemsContainer = new CompoundFrameLayoutRadioGroup(getContext());
-            mItemsContainer.setOnCheckedChangeListener(mCheckChanged);
-            addView(mItemsContainer);
         }
         {
-            mItemsContainer.setGravity(Gravity.CENTER_HORIZONTAL);
-            mItemsContainer.clearCheck();
+            mItemsLayer = new LayerAnimatorListener(mItemsContainer);
+            mItemsLayer.setEnabled(mHardwareLayersEnabled);
+            mItemsLayer.setOnLayerUsageListener(mLayerUsageListener);
         }
-        float defaultElevation = getResources().getDimension(R.dimen.horizontal_elevation);
         {
-            TypedArray a = null;
-            try {
-                a = getContext().obtainStyledAttributes(attrs, R.styleable.BottomNavigationBarView, defStyleAttr, defStyleRes);
-                {
-                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                        float elevation = a.getDimension(R.styleable.BottomNavigationBarView_android_elevation, defaultElevation);
-                        ViewCompat.setElevation(this, elevation);
-                    }
+            mVisibilityAnimator = new VisibilityAnimator<>(this, new VisibilityAnimator.Callback() {
+                @Override
+                public float getItemsAlpha() {
+                    return mItemsContainer.getAlpha();
                 }
-                {
-                    int orientation = a.getInteger(R.styleable.BottomNavigationBarView_android_orientation, RadioGroup.HORIZONTAL);
-                    mItemsContainer.setOrientation(orientation);
+
+                @Override
+                public void setItemsAlpha(float alpha) {
+                    mItemsContainer.setAlpha(alpha);
                 }
-            } finally {
-                a.recycle();
+            });
+            mVisibilityAnimator.setItemsAlphaListener(mItemsLayer);
+            mVisibilityAnimator.setPerformanceListener(mPerformanceListener);
+        }
+        {
+            mWidthTransition = new WidthTransition(mItemsContainer);
+            mWidthTransition.setDuration(mDuration);
+            mWidthTransition.setInterpolator(mInterpolator != null ? mInterpolator : new FastOutSlowInInterpolator());
+            mWidthTransition.setPerformanceListener(mPerformanceListener, this);
+        }
+        {
+            mItemsContainer.setGravity(Gravity.CENTER_HORIZONTAL);
+            mItemsContainer.setOrientation(mOrientation);
+            if (mPendingCheckedId != View.NO_ID) {
+                mItemsContainer.check(mPendingCheckedId);
+            } else {
+                mItemsContainer.clearCheck();
             }
+            mItemsContainer.setOnCheckedChangeListener(mCheckChanged);
+            addView(mItemsContainer);
+        }
+        if (size() > 0) {
+            // items added before the deferred init only exist in the list so far.
+            onItemsChanged(ImmutableList.<INavigationBarItem>of(), mHelper.snapshot());
+        }
+        {
+            mInitialLayoutListener = new OnLayoutChangeListener() {
+                @Override
+                public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft, int oldTop, int oldRight, int oldBottom) {
+                    removeOnLayoutChangeListener(mInitialLayoutListener);
+                    add(); // empty adding
+                }
+            };
+            addOnLayoutChangeListener(mInitialLayoutListener);
         }
     }
 
+    public boolean isInitialized() {
+        return mInitialized;
+    }
+
     @Override
     public void clearItems() {
         mHelper.clearItems();
@@ -185,6 +306,16 @@ public class BottomNavigationBarView extends FrameLayout implements INavigationB
         mHelper.replace(index, item);
     }
 
+    @Override
+    public void beginBatch() {
+        mHelper.beginBatch();
+    }
+
+    @Override
+    public void commit() {
+        mHelper.commit();
+    }
+
     @Override
     public int size() {
         return mHelper.size();
@@ -207,24 +338,49 @@ public class BottomNavigationBarView extends FrameLayout implements INavigationB
 
     @Override
     public void check(@IdRes int idRes) {
+        if (!mInitialized) {
+            if (idRes != mPendingCheckedId) {
+                mPendingCheckedId = idRes;
+                mHelper.onCheckChanged(idRes);
+            }
+            return;
+        }
+        if (idRes == mItemsContainer.getCheckedRadioButtonId()) {
+            BottomNavigationBarItemView view = mHelper.getItemView(idRes);
+            if (view == null || view.isChecked()) {
+                return;
+            }
+        }
         mItemsContainer.check(idRes);
     }
 
     @Override
     public void uncheck() {
+        if (!mInitialized) {
+            if (mPendingCheckedId != View.NO_ID) {
+                mPendingCheckedId = View.NO_ID;
+                mHelper.onCheckChanged(View.NO_ID);
+            }
+            return;
+        }
+        if (mItemsContainer.getCheckedRadioButtonId() == View.NO_ID) {
+            return;
+        }
         mItemsContainer.clearCheck();
     }
 
     @Nullable
     @Override
-    public View getItemView(@IdRes int idRes) {
-        for (int i = 0; i < mItemsContainer.getChildCount(); i++) {
-            View view = mItemsContainer.getChildAt(i);
-            if (view.getId() == idRes) {
-                return view;
-            }
+    public BottomNavigationBarItemView getItemView(@IdRes int idRes) {
+        return mHelper.getItemView(idRes);
+    }
+
+    @Nullable
+    public BottomNavigationBarItemView getCheckedItemView() {
+        if (!mInitialized) {
+            return null;
         }
-        return null;
+        return mHelper.getItemView(mItemsContainer.getCheckedRadioButtonId());
     }
 
     @Override
@@ -234,186 +390,347 @@ public class BottomNavigationBarView extends FrameLayout implements INavigationB
 
     @Override
     public void show(final OnVisibilityAnimateListener doAnimate) {
-        if (mShowAnimator != null) {
+        ensureInitialized();
+        mVisibilityAnimator.show(doAnimate, shouldAnimate());
+    }
+
+    @Override
+    public void hide(final OnVisibilityAnimateListener doAnimate) {
+        ensureInitialized();
+        mVisibilityAnimator.hide(doAnimate, shouldAnimate());
+    }
+
+    public void setNavigationBarOffset(float offset, @Nullable OnVisibilityAnimateListener listener) {
+        ensureInitialized();
+        mVisibilityAnimator.cancel();
+        final float height = getHeight();
+        final float translationY = Math.max(0, Math.min(offset, height));
+        if (getTranslationY() == translationY) {
             return;
         }
-        if (mHideAnimator != null) {
-            mHideAnimator.cancel();
-            mHideAnimator = null;
+        {
+            setTranslationY(translationY);
+            mItemsContainer.setAlpha(height > 0 ? 1f - translationY / height : 1f);
         }
+        if (listener != null) {
+            listener.onVisibilityAnimate(this);
+        }
+    }
 
-        if (doAnimate != null) {
-            final ValueAnimator innerAnimator = ValueAnimator.ofFloat(mItemsContainer.getAlpha(), 1);
-            innerAnimator.setDuration(500l);
-            innerAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                @Override
-                public void onAnimationUpdate(ValueAnimator animation) {
-                    mItemsContainer.setAlpha((Float) animation.getAnimatedValue());
-                }
-            });
-            innerAnimator.setInterpolator(new FastOutSlowInInterpolator());
+    @Override
+    public boolean isNavigationBarShown() {
+        return getTranslationY() == 0;
+    }
 
-            mShowAnimator = ValueAnimator.ofFloat(getTranslationY(), 0);
-            mShowAnimator.setDuration(300l);
-            mShowAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                @Override
-                public void onAnimationUpdate(ValueAnimator animation) {
-                    setTranslationY((Float) animation.getAnimatedValue());
-                    doAnimate.onVisibilityAnimate(BottomNavigationBarView.this);
-                }
-            });
-            mShowAnimator.addListener(new Animator.AnimatorListener() {
-                @Override
-                public void onAnimationStart(Animator animation) {
-                    innerAnimator.start();
-                }
+    @IdRes
+    @Override
+    public int getChecked() {
+        return mInitialized ? mItemsContainer.getCheckedRadioButtonId() : mPendingCheckedId;
+    }
 
-                @Override
-                public void onAnimationEnd(Animator animation) {
+    protected void beginWidthTransition() {
+        if (mOrientation != RadioGroup.HORIZONTAL || !ViewCompat.isLaidOut(mItemsContainer)) {
+            return;
+        }
+        if (mItemAnimationsSuppressed || !shouldAnimate()) {
+            // the next layout pass places the items at their final widths.
+            mWidthTransition.cancel();
+            return;
+        }
+        final int count = mItemsContainer.getChildCount();
+        mWidthTransition.begin();
+        int totalWidth = 0;
+        for (int i = 0; i < count; i++) {
+            View child = mItemsContainer.getChildAt(i);
+            if (child.getVisibility() != GONE) {
+                totalWidth += ((Checkable) child).isChecked() ? mActiveWidth : mInactiveWidth;
+            }
+        }
+        int left = mItemsContainer.getPaddingLeft() + (mItemsContainer.getWidth() - mItemsContainer.getPaddingLeft() - mItemsContainer.getPaddingRight() - totalWidth) / 2;
+        for (int i = 0; i < count; i++) {
+            View child = mItemsContainer.getChildAt(i);
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+            int width = ((Checkable) child).isChecked() ? mActiveWidth : mInactiveWidth;
+            mWidthTransition.setTarget(i, left, left + width);
+            left += width;
+        }
+        mWidthTransition.start();
+    }
 
+    @Override
+    public void onItemsChanged(ImmutableList<INavigationBarItem> oldItems, ImmutableList<INavigationBarItem> newItems) {
+        if (!mInitialized) {
+            // the views are created from the whole list by ensureInitialized().
+            return;
+        }
+        final PerformanceListener listener = mPerformanceListener;
+        final long start = listener != null ? System.nanoTime() : 0;
+        final boolean atlasChanged = updateIconAtlas(newItems);
+        {
+            mWidthTransition.cancel();
+            mHelper.onItemsChanged(mItemsContainer, oldItems, newItems);
+        }
+        final boolean trace = NavigationBarTrace.beginSection(NavigationBarTrace.ITEM_WIDTHS);
+        try {
+            int measuredWidth = mItemsContainer.getMeasuredWidth();
+            int count = mItemsContainer.getChildCount();
+            int inactiveCount;
+            {
+                int activeCount = mItemsContainer.getCheckedRadioButtonId() != View.NO_ID ? 1 : 0;
+                inactiveCount = count - activeCount;
+            }
+            int activeWidth, inactiveWidth;
+            if (count == 0) {
+                inactiveWidth = activeWidth = 0;
+            } else if (mItemWidthFixed || count == 1) {
+                inactiveWidth = activeWidth = Math.min(mMetrics.activeItemMaxWidth, measuredWidth / count);
+            } else {
+                {
+                    int layoutMax = measuredWidth - (inactiveCount * mMetrics.itemMinWidth);
+                    activeWidth = Math.min(layoutMax, mMetrics.activeItemMaxWidth);
                 }
-
-                @Override
-                public void onAnimationCancel(Animator animation) {
-                    innerAnimator.cancel();
+                {
+                    int layoutMax = (measuredWidth - activeWidth) / inactiveCount;
+                    inactiveWidth = Math.min(layoutMax, mMetrics.inactiveItemMaxWidth);
                 }
+            }
+            {
+                mInactiveWidth = inactiveWidth;
+                mActiveWidth = activeWidth;
+            }
+            for (int i = 0; i < count; i++) {
+                BottomNavigationBarItemView itm = (BottomNavigationBarItemView) mItemsContainer.getChildAt(i);
+                itm.setWidth(inactiveWidth, activeWidth);
+                itm.setHeight(mMetrics.itemHeight);
+                itm.setDuration(mWidthTransition.getDuration());
+                itm.setInterpolator(mWidthTransition.getInterpolator());
+                if (atlasChanged) {
+                    itm.refreshIcon();
+                }
+            }
+        } finally {
+            NavigationBarTrace.endSection(trace);
+        }
+        if (listener != null) {
+            listener.onItemsChanged(this, oldItems.size(), newItems.size(), System.nanoTime() - start);
+        }
+    }
 
-                @Override
-                public void onAnimationRepeat(Animator animation) {
-
+    protected boolean updateIconAtlas(List<INavigationBarItem> items) {
+        final IconAtlas oldAtlas = mIconAtlas;
+        if (mIconAtlasEnabled) {
+            final SparseIntArray sizes = mIconAtlasSizes;
+            sizes.clear();
+            for (INavigationBarItem item : items) {
+                if (item instanceof AbsNavigationBarItem) {
+                    AbsNavigationBarItem abs = (AbsNavigationBarItem) item;
+                    Integer iconSize = abs.getIconPixelSize();
+                    int size = iconSize != null ? iconSize : mMetrics.iconSize;
+                    sizes.put(abs.getDrawableIdRes(true), size);
+                    sizes.put(abs.getDrawableIdRes(false), size);
                 }
-            });
-            mShowAnimator.setInterpolator(new FastOutSlowInInterpolator());
-            mShowAnimator.start();
+            }
+            if (sizes.size() == 0) {
+                mIconAtlas = null;
+            } else if (mIconAtlas == null || !mIconAtlas.matches(getContext(), sizes)) {
+                mIconAtlas = new IconAtlas(getContext(), sizes);
+            }
+        } else {
+            mIconAtlas = null;
+        }
+        boolean changed = false;
+        for (INavigationBarItem item : items) {
+            if (item instanceof AbsNavigationBarItem) {
+                AbsNavigationBarItem abs = (AbsNavigationBarItem) item;
+                if (abs.getIconAtlas() != mIconAtlas && (mIconAtlas != null || abs.getIconAtlas() == oldAtlas)) {
+                    abs.setIconAtlas(mIconAtlas);
+                    changed = true;
+                }
+            }
         }
+        return changed;
     }
 
-    @Override
-    public void hide(final OnVisibilityAnimateListener doAnimate) {
-        if (mHideAnimator != null) {
+    public void setIconAtlasEnabled(boolean enabled) {
+        if (mIconAtlasEnabled == enabled) {
             return;
         }
-        if (mShowAnimator != null) {
-            mShowAnimator.cancel();
-            mShowAnimator = null;
+        mIconAtlasEnabled = enabled;
+        if (mInitialized) {
+            mHelper.add(); // empty adding
         }
+    }
 
-        if (doAnimate != null) {
-            final ValueAnimator innerAnimator = ValueAnimator.ofFloat(mItemsContainer.getAlpha(), 0);
-            innerAnimator.setDuration(250l);
-            innerAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                @Override
-                public void onAnimationUpdate(ValueAnimator animation) {
-                    mItemsContainer.setAlpha((Float) animation.getAnimatedValue());
-                }
-            });
-            innerAnimator.setInterpolator(new FastOutSlowInInterpolator());
+    public boolean isIconAtlasEnabled() {
+        return mIconAtlasEnabled;
+    }
 
-            mHideAnimator = ValueAnimator.ofFloat(getTranslationY(), getHeight());
-            mHideAnimator.setDuration(450l);
-            mHideAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                @Override
-                public void onAnimationUpdate(ValueAnimator animation) {
-                    setTranslationY((Float) animation.getAnimatedValue());
-                    doAnimate.onVisibilityAnimate(BottomNavigationBarView.this);
-                }
-            });
-            mHideAnimator.addListener(new Animator.AnimatorListener() {
-                @Override
-                public void onAnimationStart(Animator animation) {
-                    innerAnimator.start();
-                }
+    @Override
+    public BottomNavigationBarItemView createItemView(INavigationBarItem item, boolean isChecked) {
+        final boolean trace = NavigationBarTrace.beginSection(NavigationBarTrace.CREATE_ITEM_VIEW);
+        try {
+            BottomNavigationBarItemView ret = new BottomNavigationBarItemView(getContext());
+            FrameLayout.LayoutParams params;
+            {
+                params = new FrameLayout.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+            }
+            {
+                ret.setLayoutParams(params);
+            }
+            bindItemView(ret, item, isChecked);
+            return ret;
+        } finally {
+            NavigationBarTrace.endSection(trace);
+        }
+    }
 
-                @Override
-                public void onAnimationEnd(Animator animation) {
+    @Override
+    public void bindItemView(BottomNavigationBarItemView view, INavigationBarItem item, boolean isChecked) {
+        view.setMetrics(mMetrics);
+        view.setHardwareLayersEnabled(mHardwareLayersEnabled);
+        view.setOnLayerUsageListener(mLayerUsageListener);
+        view.setPerformanceListener(mPerformanceListener, this);
+        view.setAnimationsSuppressed(mItemAnimationsSuppressed);
+        view.setChecked(isChecked);
+        view.setItem(item);
+    }
 
-                }
+    @Override
+    public void recycleItemView(BottomNavigationBarItemView view) {
+        view.recycle();
+    }
 
-                @Override
-                public void onAnimationCancel(Animator animation) {
-                    innerAnimator.cancel();
-                }
+    public RecycledItemViewPool<BottomNavigationBarItemView> getRecycledViewPool() {
+        return mHelper.getRecycledViewPool();
+    }
 
-                @Override
-                public void onAnimationRepeat(Animator animation) {
+    public void setMaxRecycledViews(int max) {
+        mHelper.getRecycledViewPool().setMaxSize(max);
+    }
 
-                }
-            });
-            mHideAnimator.setInterpolator(new FastOutSlowInInterpolator());
-            mHideAnimator.start();
+    public void setHardwareLayersEnabled(boolean enabled) {
+        mHardwareLayersEnabled = enabled;
+        if (!mInitialized) {
+            return;
+        }
+        mItemsLayer.setEnabled(enabled);
+        for (int i = 0; i < mItemsContainer.getChildCount(); i++) {
+            ((BottomNavigationBarItemView) mItemsContainer.getChildAt(i)).setHardwareLayersEnabled(enabled);
         }
     }
 
-    @Override
-    public boolean isNavigationBarShown() {
-        return getTranslationY() == 0;
+    public boolean isHardwareLayersEnabled() {
+        return mHardwareLayersEnabled;
     }
 
-    @IdRes
-    @Override
-    public int getChecked() {
-        return mItemsContainer.getCheckedRadioButtonId();
+    public void setOnLayerUsageListener(@Nullable LayerAnimatorListener.OnLayerUsageListener listener) {
+        mLayerUsageListener = listener;
+        if (!mInitialized) {
+            return;
+        }
+        mItemsLayer.setOnLayerUsageListener(listener);
+        for (int i = 0; i < mItemsContainer.getChildCount(); i++) {
+            ((BottomNavigationBarItemView) mItemsContainer.getChildAt(i)).setOnLayerUsageListener(listener);
+        }
     }
 
     @Override
-    public void onItemsChanged(ImmutableList<INavigationBarItem> oldItems, ImmutableList<INavigationBarItem> newItems) {
+    public void setPerformanceListener(@Nullable PerformanceListener listener) {
         {
-            mHelper.onItemsChanged(mItemsContainer, oldItems, newItems);
+            mPerformanceListener = listener;
+            mHelper.setPerformanceListener(listener);
         }
-        int measuredWidth = mItemsContainer.getMeasuredWidth();
-        int count = mItemsContainer.getChildCount();
-        int inactiveCount;
-        {
-            int activeCount = mItemsContainer.getCheckedRadioButtonId() != View.NO_ID ? 1 : 0;
-            inactiveCount = count - activeCount;
-        }
-        int activeWidth, inactiveWidth;
-        if (count == 0) {
-            inactiveWidth = activeWidth = 0;
-        } else if (mItemWidthFixed || count == 1) {
-            inactiveWidth = activeWidth = Math.min(mActiveMaxWidth, measuredWidth / count);
-        } else {
-            {
-                int layoutMax = measuredWidth - (inactiveCount * mInactiveMinWidth);
-                activeWidth = Math.min(layoutMax, mActiveMaxWidth);
-            }
-            {
-                int layoutMax = (measuredWidth - activeWidth) / inactiveCount;
-                inactiveWidth = Math.min(layoutMax, mInactiveMaxWidth);
-            }
+        if (!mInitialized) {
+            return;
         }
-        for (int i = 0; i < count; i++) {
-            BottomNavigationBarItemView itm = (BottomNavigationBarItemView) mItemsContainer.getChildAt(i);
-            itm.setWidth(inactiveWidth, activeWidth);
-            itm.setHeight(mItemHeight);
-            itm.setDuration(mTransitionSet.getDuration());
-            itm.setInterpolator(mTransitionSet.getInterpolator());
+        mWidthTransition.setPerformanceListener(listener, this);
+        mVisibilityAnimator.setPerformanceListener(listener);
+        for (int i = 0; i < mItemsContainer.getChildCount(); i++) {
+            ((BottomNavigationBarItemView) mItemsContainer.getChildAt(i)).setPerformanceListener(listener, this);
         }
     }
 
+    public BottomNavigationBarMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    protected boolean shouldAnimate() {
+        return ViewCompat.isAttachedToWindow(this) && getWindowVisibility() == VISIBLE && isShown();
+    }
+
     @Override
-    public BottomNavigationBarItemView createItemView(INavigationBarItem item, boolean isChecked) {
-        BottomNavigationBarItemView ret = new BottomNavigationBarItemView(getContext());
-        FrameLayout.LayoutParams params;
+    public void setTranslationY(float translationY) {
+        super.setTranslationY(translationY);
+        // a bar moved fully off-screen by hide() or a behavior doesn't animate its items.
+        boolean suppressed = getHeight() > 0 && translationY >= getHeight();
+        if (mItemAnimationsSuppressed == suppressed) {
+            return;
+        }
+        mItemAnimationsSuppressed = suppressed;
+        if (!mInitialized) {
+            return;
+        }
+        if (suppressed) {
+            mWidthTransition.end();
+        }
+        for (int i = 0; i < mItemsContainer.getChildCount(); i++) {
+            ((BottomNavigationBarItemView) mItemsContainer.getChildAt(i)).setAnimationsSuppressed(suppressed);
+        }
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        if (visibility != VISIBLE) {
+            endAnimations();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        removeFirstDrawListener();
+        removeCallbacks(mDeferredInit);
+        endAnimations();
+        super.onDetachedFromWindow();
+    }
+
+    protected void endAnimations() {
+        if (mInitialized) {
+            mVisibilityAnimator.end();
+            mWidthTransition.end();
+        }
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
         {
-            params = new FrameLayout.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+            mMetrics = new BottomNavigationBarMetrics(getResources());
+        }
+        if (!mInitialized) {
+            return;
+        }
+        for (int i = 0; i < mItemsContainer.getChildCount(); i++) {
+            BottomNavigationBarItemView itm = (BottomNavigationBarItemView) mItemsContainer.getChildAt(i);
+            itm.setMetrics(mMetrics);
         }
         {
-            ret.setChecked(isChecked);
-            ret.setLayoutParams(params);
-            ret.setItem(item);
+            // rasterized for the old density and night mode.
+            mIconAtlas = null;
         }
-        return ret;
+        mHelper.add(); // empty adding
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         final int h;
-        if (size() < 1) {
+        if (!mInitialized || size() < 1) {
             if (MeasureSpec.getMode(heightMeasureSpec) == MeasureSpec.EXACTLY) {
                 h = heightMeasureSpec;
             } else {
-                h = MeasureSpec.makeMeasureSpec(mItemHeight, MeasureSpec.EXACTLY);
+                h = MeasureSpec.makeMeasureSpec(mMetrics.itemHeight, MeasureSpec.EXACTLY);
             }
         } else {
             h = heightMeasureSpec;
@@ -423,21 +740,39 @@ public class BottomNavigationBarView extends FrameLayout implements INavigationB
 
     public void setItemWidthFixed(boolean fixed) {
         mItemWidthFixed = fixed;
-        mHelper.add(); // empty adding
+        if (mInitialized) {
+            mHelper.add(); // empty adding
+        }
     }
 
     @Override
     public void setDuration(long duration) {
-        mTransitionSet.setDuration(duration);
+        mDuration = duration;
+        if (mInitialized) {
+            mWidthTransition.setDuration(duration);
+        }
     }
 
     @Override
     public void setInterpolator(TimeInterpolator interpolator) {
-        mTransitionSet.setInterpolator(interpolator);
+        mInterpolator = interpolator;
+        if (mInitialized) {
+            mWidthTransition.setInterpolator(interpolator);
+        }
     }
 
     public static class BottomBehavior extends CoordinatorLayout.Behavior<BottomNavigationBarView> {
 
+        private boolean mScrollLinked = false;
+        private int mHideThreshold = -1;
+        private int mAccumulatedDy = 0;
+
+        @Nullable
+        private View mAnimatorTarget = null;
+
+        @Nullable
+        private OnVisibilityAnimateListener mAnimator = null;
+
         public BottomBehavior() {
         }
 
@@ -445,23 +780,89 @@ public class BottomNavigationBarView extends FrameLayout implements INavigationB
             super(context, attrs);
         }
 
+        public void setScrollLinked(boolean scrollLinked) {
+            mScrollLinked = scrollLinked;
+            mAccumulatedDy = 0;
+        }
+
+        public boolean isScrollLinked() {
+            return mScrollLinked;
+        }
+
+        public void setHideThreshold(int px) {
+            mHideThreshold = px;
+        }
+
+        public int getHideThreshold(View child) {
+            if (mHideThreshold < 0) {
+                mHideThreshold = child.getResources().getDimensionPixelSize(R.dimen.behavior_hide_threshold);
+            }
+            return mHideThreshold;
+        }
+
         @Override
         public void onNestedPreScroll(CoordinatorLayout coordinatorLayout, BottomNavigationBarView child, View target, int dx, int dy, int[] consumed) {
             super.onNestedPreScroll(coordinatorLayout, child, target, dx, dy, consumed);
+            if (dy == 0) {
+                return;
+            }
+            if (mScrollLinked) {
+                onScrollLinked(child, target, dy);
+                return;
+            }
             boolean isScrollDown = dy > 0;
 
             if (isScrollDown) {
-                child.hide(createAnimator(target));
+                child.hide(getAnimator(target));
             } else {
-                child.show(createAnimator(target));
+                child.show(getAnimator(target));
             }
         }
 
+        protected void onScrollLinked(BottomNavigationBarView child, View target, int dy) {
+            if ((dy > 0) != (mAccumulatedDy > 0)) {
+                mAccumulatedDy = 0;
+            }
+            mAccumulatedDy += dy;
+            int excess = Math.abs(mAccumulatedDy) - getHideThreshold(child);
+            if (excess <= 0) {
+                return;
+            }
+            int step = Math.min(excess, Math.abs(dy));
+            child.setNavigationBarOffset(child.getTranslationY() + (dy > 0 ? step : -step), getAnimator(target));
+        }
+
         @Override
         public boolean onStartNestedScroll(CoordinatorLayout coordinatorLayout, BottomNavigationBarView child, View directTargetChild, View target, int nestedScrollAxes) {
             return (nestedScrollAxes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0;
         }
 
+        @Override
+        public void onStopNestedScroll(CoordinatorLayout coordinatorLayout, BottomNavigationBarView child, View target) {
+            super.onStopNestedScroll(coordinatorLayout, child, target);
+            if (!mScrollLinked) {
+                return;
+            }
+            mAccumulatedDy = 0;
+            float translationY = child.getTranslationY();
+            if (translationY <= 0 || translationY >= child.getHeight()) {
+                return;
+            }
+            if (translationY >= child.getHeight() / 2f) {
+                child.hide(getAnimator(target));
+            } else {
+                child.show(getAnimator(target));
+            }
+        }
+
+        protected OnVisibilityAnimateListener getAnimator(View target) {
+            if (mAnimator == null || mAnimatorTarget != target) {
+                mAnimator = createAnimator(target);
+                mAnimatorTarget = target;
+            }
+            return mAnimator;
+        }
+
         protected OnVisibilityAnimateListener createAnimator(View target) {
             return new OnVisibilityAnimateListener() {
                 @Override
@@ -475,6 +876,8 @@ public class BottomNavigationBarView extends FrameLayout implements INavigationB
 
     public static class LiftUpBottomBehavior extends BottomBehavior {
 
+        private boolean mLayoutFree = false;
+
         public LiftUpBottomBehavior() {
             super();
         }
@@ -483,14 +886,36 @@ public class BottomNavigationBarView extends FrameLayout implements INavigationB
             super(context, attrs);
         }
 
+        public void setLayoutFree(boolean layoutFree) {
+            mLayoutFree = layoutFree;
+        }
+
+        public boolean isLayoutFree() {
+            return mLayoutFree;
+        }
+
         @Override
         protected OnVisibilityAnimateListener createAnimator(final View target) {
             return new OnVisibilityAnimateListener() {
 
                 @Override
                 public <SELF extends View & INavigationBarView> void onVisibilityAnimate(SELF self) {
+                    final float translationY = self.getTranslationY();
+                    final int bottomMargin = (int) (translationY - self.getHeight());
                     MarginLayoutParams params = (MarginLayoutParams) target.getLayoutParams();
-                    params.bottomMargin = (int) (self.getTranslationY() - self.getHeight());
+                    if (mLayoutFree) {
+                        // while the bar moves, the content follows it by the margin it would have had;
+                        // the margin itself is only applied once the bar is fully shown or fully hidden.
+                        boolean atRest = translationY <= 0 || translationY >= self.getHeight();
+                        target.setTranslationY(atRest ? 0 : bottomMargin - params.bottomMargin);
+                        if (!atRest) {
+                            return;
+                        }
+                    }
+                    if (params.bottomMargin == bottomMargin) {
+                        return;
+                    }
+                    params.bottomMargin = bottomMargin;
                     target.setLayoutParams(params);
                 }
 
@@ -0,0 +1,924 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jp.s64.android.navigationbarview.bottom;
+
+import android.animation.TimeInterpolator;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Bundle;
+import android.support.annotation.AttrRes;
+import android.support.annotation.ColorInt;
+import android.support.annotation.IdRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.RequiresApi;
+import android.support.annotation.StyleRes;
+import android.support.v4.graphics.drawable.DrawableCompat;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.support.v4.view.animation.FastOutSlowInInterpolator;
+import android.support.v4.widget.ExploreByTouchHelper;
+import android.support.v7.content.res.AppCompatResources;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.util.SparseArray;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.accessibility.AccessibilityEvent;
+import android.widget.RadioButton;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jp.s64.android.navigationbarview.R;
+import jp.s64.android.navigationbarview.item.AbsNavigationBarItem;
+import jp.s64.android.navigationbarview.item.BadgeIconLayout;
+import jp.s64.android.navigationbarview.item.ColorRamp;
+import jp.s64.android.navigationbarview.item.INavigationBarItem;
+import jp.s64.android.navigationbarview.view.INavigationBarView;
+import jp.s64.android.navigationbarview.view.NavigationBarItems;
+import jp.s64.android.navigationbarview.view.NavigationBarTrace;
+
+// items have no views of their own: INavigationBarItem#onItemViewCreated() and #onItemViewRemoved() get this bar.
+public class CanvasBottomNavigationBarView extends View implements INavigationBarView {
+
+    private static final int[] STATE_ENABLED = {android.R.attr.state_enabled};
+    private static final int[] STATE_PRESSED = {android.R.attr.state_pressed, android.R.attr.state_enabled};
+
+    private final NavigationBarItems mItems = new NavigationBarItems(new NavigationBarItems.Listener() {
+        @Override
+        public void onItemsChanged(ImmutableList<INavigationBarItem> oldItems, ImmutableList<INavigationBarItem> newItems) {
+            CanvasBottomNavigationBarView.this.onItemsChanged(oldItems, newItems);
+        }
+    });
+
+    private final ArrayList<Slot> mSlots = new ArrayList<>();
+    private final SparseArray<Slot> mSlotsById = new SparseArray<>();
+
+    private final TextPaint mTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint.FontMetrics mFontMetrics = new Paint.FontMetrics();
+    private final ReusableIconAnimator mIconAnimator = new ReusableIconAnimator();
+
+    private BottomNavigationBarMetrics mMetrics;
+
+    private CheckAnimationEngine mAnimationEngine;
+    private TimeInterpolator mInterpolator;
+    private long mDuration;
+
+    private boolean mItemWidthFixed = false;
+
+    @IdRes
+    private int mCheckedId = View.NO_ID;
+
+    @Nullable
+    private Integer mOldCheckedId = null;
+
+    @Nullable
+    private OnCheckChangeListener mListener = null;
+
+    @Nullable
+    private PerformanceListener mPerformanceListener = null;
+
+    private float mItemsAlpha = 1f;
+
+    private VisibilityAnimator<CanvasBottomNavigationBarView> mVisibilityAnimator;
+
+    private int mPressedIndex = -1;
+
+    // the pressed item's ripple, drawn at the bounds of the slot it was last pressed on.
+    @Nullable
+    private Drawable mItemBackground = null;
+    private final Rect mPressedBounds = new Rect();
+
+    // icon views are never attached, so their own invalidation doesn't reach this view.
+    private final BadgeIconLayout.OnInvalidateListener mIconInvalidateListener = new BadgeIconLayout.OnInvalidateListener() {
+        @Override
+        public void onIconInvalidated(BadgeIconLayout icon) {
+            invalidate();
+        }
+    };
+
+    private TouchHelper mTouchHelper;
+
+    public CanvasBottomNavigationBarView(@NonNull Context context) {
+        super(context, null);
+        init(null, 0, 0);
+    }
+
+    public CanvasBottomNavigationBarView(@NonNull Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs, 0);
+        init(attrs, 0, 0);
+    }
+
+    public CanvasBottomNavigationBarView(@NonNull Context context, @Nullable AttributeSet attrs, @AttrRes int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(attrs, defStyleAttr, 0);
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+    public CanvasBottomNavigationBarView(@NonNull Context context, @Nullable AttributeSet attrs, @AttrRes int defStyleAttr, @StyleRes int defStyleRes) {
+        super(context, attrs, defStyleAttr, defStyleRes);
+        init(attrs, defStyleAttr, defStyleRes);
+    }
+
+    protected void init(@Nullable AttributeSet attrs, @AttrRes int defStyleAttr, @StyleRes int defStyleRes) {
+        {
+            mMetrics = new BottomNavigationBarMetrics(getResources());
+            mTextPaint.setTextSize(mMetrics.textSize);
+        }
+        {
+            mAnimationEngine = new CheckAnimationEngine(new CheckAnimationEngine.Callback() {
+                @Override
+                public void onAnimationFrame(float fraction) {
+                    CanvasBottomNavigationBarView.this.onAnimationFrame(fraction);
+                }
+            });
+            setDuration(200l);
+            setInterpolator(new FastOutSlowInInterpolator());
+        }
+        {
+            mVisibilityAnimator = new VisibilityAnimator<>(this, new VisibilityAnimator.Callback() {
+                @Override
+                public float getItemsAlpha() {
+                    return mItemsAlpha;
+                }
+
+                @Override
+                public void setItemsAlpha(float alpha) {
+                    CanvasBottomNavigationBarView.this.setItemsAlpha(alpha);
+                }
+            });
+        }
+        {
+            mTouchHelper = new TouchHelper(this);
+            ViewCompat.setAccessibilityDelegate(this, mTouchHelper);
+        }
+        {
+            TypedValue value = new TypedValue();
+            if (getContext().getTheme().resolveAttribute(R.attr.selectableItemBackgroundBorderless, value, true) && value.resourceId != 0) {
+                mItemBackground = AppCompatResources.getDrawable(getContext(), value.resourceId);
+            }
+            if (mItemBackground != null) {
+                mItemBackground.setCallback(this);
+                mItemBackground.setState(STATE_ENABLED);
+            }
+        }
+        {
+            setItemLimit(null, null);
+        }
+        float defaultElevation = mMetrics.elevation;
+        {
+            TypedArray a = null;
+            try {
+                a = getContext().obtainStyledAttributes(attrs, R.styleable.BottomNavigationBarView, defStyleAttr, defStyleRes);
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                    float elevation = a.getDimension(R.styleable.BottomNavigationBarView_android_elevation, defaultElevation);
+                    ViewCompat.setElevation(this, elevation);
+                }
+            } finally {
+                a.recycle();
+            }
+        }
+    }
+
+    @Override
+    public void clearItems() {
+        mItems.clearItems();
+    }
+
+    @Override
+    public void add(INavigationBarItem... items) {
+        mItems.add(items);
+    }
+
+    @Override
+    public void remove(INavigationBarItem... items) {
+        mItems.remove(items);
+    }
+
+    @Override
+    public void remove(int index) {
+        mItems.remove(index);
+    }
+
+    @Override
+    public void replace(int index, INavigationBarItem item) {
+        mItems.replace(index, item);
+    }
+
+    @Override
+    public void beginBatch() {
+        mItems.beginBatch();
+    }
+
+    @Override
+    public void commit() {
+        mItems.commit();
+    }
+
+    @Override
+    public int size() {
+        return mItems.size();
+    }
+
+    @Override
+    public void setItemLimit(@Nullable Integer min, @Nullable Integer max) {
+        mItems.setItemLimit(
+                min != null ? min : getResources().getInteger(R.integer.default_min_items),
+                max != null ? max : getResources().getInteger(R.integer.default_max_items)
+        );
+    }
+
+    @Override
+    public int getMaxSize() {
+        return mItems.getMaxSize();
+    }
+
+    @Override
+    public int getMinSize() {
+        return mItems.getMinSize();
+    }
+
+    @Override
+    public void check(@IdRes int idRes) {
+        if (idRes == mCheckedId) {
+            return;
+        }
+        {
+            mCheckedId = idRes;
+        }
+        resetSlots(true);
+        mTouchHelper.invalidateRoot();
+        onCheckChanged(idRes);
+    }
+
+    @Override
+    public void uncheck() {
+        check(View.NO_ID);
+    }
+
+    protected void onCheckChanged(@IdRes int checkedId) {
+        if (mListener != null) {
+            mListener.onCheckChanged(
+                    mOldCheckedId == null ? View.NO_ID : mOldCheckedId,
+                    checkedId
+            );
+        }
+        mOldCheckedId = checkedId;
+    }
+
+    @Nullable
+    @Override
+    public View getItemView(@IdRes int idRes) {
+        return null; // items have no views, see INavigationBarView#getItemView()
+    }
+
+    public boolean getItemBounds(@IdRes int idRes, Rect outRect) {
+        Slot slot = mSlotsById.get(idRes);
+        if (slot == null) {
+            return false;
+        }
+        getSlotBounds(slot, outRect);
+        return true;
+    }
+
+    @Override
+    public void setOnCheckChangedListener(@Nullable OnCheckChangeListener listener) {
+        mListener = listener;
+    }
+
+    @Override
+    public void show(final OnVisibilityAnimateListener doAnimate) {
+        mVisibilityAnimator.show(doAnimate, shouldAnimate());
+    }
+
+    @Override
+    public void hide(final OnVisibilityAnimateListener doAnimate) {
+        mVisibilityAnimator.hide(doAnimate, shouldAnimate());
+    }
+
+    protected void setItemsAlpha(float alpha) {
+        if (mItemsAlpha == alpha) {
+            return;
+        }
+        mItemsAlpha = alpha;
+        invalidate();
+    }
+
+    @Override
+    public boolean isNavigationBarShown() {
+        return getTranslationY() == 0;
+    }
+
+    @IdRes
+    @Override
+    public int getChecked() {
+        return mCheckedId;
+    }
+
+    protected void onItemsChanged(ImmutableList<INavigationBarItem> oldItems, ImmutableList<INavigationBarItem> newItems) {
+        final boolean trace = NavigationBarTrace.beginSection(NavigationBarTrace.ITEMS_CHANGED);
+        try {
+            dispatchItemsChanged(oldItems, newItems);
+        } finally {
+            NavigationBarTrace.endSection(trace);
+        }
+    }
+
+    private void dispatchItemsChanged(ImmutableList<INavigationBarItem> oldItems, ImmutableList<INavigationBarItem> newItems) {
+        final PerformanceListener listener = mPerformanceListener;
+        final long start = listener != null ? System.nanoTime() : 0;
+        mItems.assertLessThanMaxSize(newItems.size());
+
+        final List<Slot> newSlots = new ArrayList<>(newItems.size());
+        for (INavigationBarItem item : newItems) {
+            final long slotStart = listener != null ? System.nanoTime() : 0;
+            Slot slot = mSlotsById.get(item.getIdRes());
+            final boolean created = slot == null;
+            if (!created) {
+                mSlotsById.remove(item.getIdRes());
+            } else {
+                slot = new Slot();
+            }
+            if (slot.item != item) {
+                if (slot.item != null) {
+                    slot.item.onItemViewRemoved(this);
+                }
+                setSlotIcon(slot, null);
+                slot.bind(item);
+                if (listener != null) {
+                    if (created) {
+                        listener.onItemViewCreated(this, item.getIdRes(), System.nanoTime() - slotStart);
+                    } else {
+                        listener.onItemViewRebound(this, item.getIdRes(), System.nanoTime() - slotStart);
+                    }
+                }
+                // there are no item views, so every item gets the bar itself.
+                item.onItemViewCreated(this);
+            }
+            newSlots.add(slot);
+        }
+        for (int i = 0; i < mSlotsById.size(); i++) {
+            Slot removed = mSlotsById.valueAt(i);
+            setSlotIcon(removed, null);
+            removed.item.onItemViewRemoved(this);
+        }
+        {
+            mSlotsById.clear();
+            mSlots.clear();
+            mSlots.addAll(newSlots);
+            for (Slot slot : mSlots) {
+                mSlotsById.put(slot.item.getIdRes(), slot);
+            }
+        }
+        resetSlots(true);
+        mTouchHelper.invalidateRoot();
+        if (listener != null) {
+            listener.onItemsChanged(this, oldItems.size(), newItems.size(), System.nanoTime() - start);
+        }
+    }
+
+    protected void resetSlots(boolean animate) {
+        final BottomNavigationBarMetrics metrics = mMetrics;
+        final int count = mSlots.size();
+        if (count == 0) {
+            mAnimationEngine.cancel();
+            invalidate();
+            return;
+        }
+        final int measuredWidth = getWidth() - getPaddingLeft() - getPaddingRight();
+        int inactiveCount;
+        {
+            int activeCount = mSlotsById.get(mCheckedId) != null ? 1 : 0;
+            inactiveCount = count - activeCount;
+        }
+        int activeWidth, inactiveWidth;
+        if (mItemWidthFixed || count == 1) {
+            inactiveWidth = activeWidth = Math.min(metrics.activeItemMaxWidth, measuredWidth / count);
+        } else {
+            {
+                int layoutMax = measuredWidth - (inactiveCount * metrics.itemMinWidth);
+                activeWidth = Math.min(layoutMax, metrics.activeItemMaxWidth);
+            }
+            {
+                int layoutMax = (measuredWidth - activeWidth) / inactiveCount;
+                inactiveWidth = Math.min(layoutMax, metrics.inactiveItemMaxWidth);
+            }
+        }
+        float totalWidth = 0;
+        for (Slot slot : mSlots) {
+            slot.toWidth = Math.max(0, slot.item.getIdRes() == mCheckedId ? activeWidth : inactiveWidth);
+            totalWidth += slot.toWidth;
+        }
+        float left = getPaddingLeft() + (measuredWidth - totalWidth) / 2f;
+        for (Slot slot : mSlots) {
+            final boolean isChecked = slot.item.getIdRes() == mCheckedId;
+            final boolean jump = !animate || slot.isNew;
+            {
+                slot.toLeft = left;
+                left += slot.toWidth;
+            }
+            boolean withText;
+            {
+                String text = slot.item.getText(isChecked);
+                if (text != null) {
+                    slot.text = text;
+                    withText = true;
+                } else {
+                    withText = false;
+                }
+            }
+            float textScale;
+            {
+                textScale = withText ? (isChecked ? metrics.activeTextScale : metrics.inactiveTextScale) : metrics.disableTextScale;
+            }
+            int textSize = withText ? (int) (metrics.textSize * textScale) : 0;
+            {
+                int padding = withText ? metrics.textUnderPaddingVisible : metrics.textUnderPaddingGone;
+                slot.iconBottomInset = padding + textSize;
+            }
+            if (slot.text != null) {
+                float available = (slot.toWidth - metrics.itemHorizontalPadding * 2) / (textScale > 0 ? textScale : 1f);
+                slot.label = TextUtils.ellipsize(slot.text, mTextPaint, Math.max(0, available), TextUtils.TruncateAt.END);
+                slot.labelWidth = mTextPaint.measureText(slot.label, 0, slot.label.length());
+            }
+            {
+                slot.fromLeft = jump ? slot.toLeft : slot.left;
+                slot.fromWidth = jump ? slot.toWidth : slot.width;
+                slot.toTextAlpha = withText ? 1f : 0f;
+                slot.fromTextAlpha = jump ? slot.toTextAlpha : slot.textAlpha;
+                slot.toTextScale = textScale;
+                slot.fromTextScale = jump ? slot.toTextScale : slot.textScale;
+            }
+            {
+                int inactiveColor = slot.item.getTextColorInt(false), activeColor = slot.item.getTextColorInt(true);
+                slot.textColorRamp.set(inactiveColor, activeColor);
+                // a jumping slot takes its end color right away, like its bounds and label.
+                slot.textColorAnimating = !jump && slot.oldIsChecked != isChecked && inactiveColor != activeColor;
+            }
+            if (slot.item instanceof AbsNavigationBarItem) {
+                ((AbsNavigationBarItem) slot.item).refreshColors();
+            }
+            {
+                Integer iconSize = slot.item.getIconPixelSize();
+                slot.iconSize = iconSize != null ? iconSize : metrics.iconSize;
+            }
+            {
+                slot.animatingIsChecked = isChecked;
+                slot.animatingOldIsChecked = jump ? isChecked : slot.oldIsChecked;
+                slot.oldIsChecked = isChecked;
+                slot.isNew = false;
+            }
+        }
+        if (animate && shouldAnimate() && !isOffScreen()) {
+            mAnimationEngine.start(mDuration, mInterpolator);
+        } else {
+            mAnimationEngine.cancel();
+            onAnimationFrame(1f);
+        }
+    }
+
+    protected void onAnimationFrame(float fraction) {
+        for (Slot slot : mSlots) {
+            {
+                slot.left = slot.fromLeft + (slot.toLeft - slot.fromLeft) * fraction;
+                slot.width = slot.fromWidth + (slot.toWidth - slot.fromWidth) * fraction;
+                slot.textAlpha = slot.fromTextAlpha + (slot.toTextAlpha - slot.fromTextAlpha) * fraction;
+                slot.textScale = slot.fromTextScale + (slot.toTextScale - slot.fromTextScale) * fraction;
+            }
+            {
+                slot.textColor = slot.textColorRamp.get(slot.textColorAnimating ? fraction : 1f, slot.animatingIsChecked);
+            }
+            {
+                final boolean trace = NavigationBarTrace.beginSection(NavigationBarTrace.UPDATE_ICON);
+                View newIcon;
+                try {
+                    newIcon = slot.item.updateIcon(
+                            slot.icon,
+                            getContext(),
+                            slot.iconSize,
+                            slot.iconSize,
+                            mIconAnimator.update(slot.animatingIsChecked, slot.animatingOldIsChecked, fraction)
+                    );
+                } finally {
+                    NavigationBarTrace.endSection(trace);
+                }
+                if (slot.icon != newIcon || newIcon.isLayoutRequested()) {
+                    setSlotIcon(slot, newIcon);
+                    layoutIcon(newIcon, slot.iconSize);
+                }
+            }
+        }
+        invalidate();
+    }
+
+    private void setSlotIcon(Slot slot, @Nullable View icon) {
+        if (slot.icon == icon) {
+            return;
+        }
+        if (slot.icon instanceof BadgeIconLayout) {
+            ((BadgeIconLayout) slot.icon).setOnInvalidateListener(null);
+        }
+        {
+            slot.icon = icon;
+        }
+        if (icon instanceof BadgeIconLayout) {
+            ((BadgeIconLayout) icon).setOnInvalidateListener(mIconInvalidateListener);
+        }
+    }
+
+    private static void layoutIcon(View icon, int size) {
+        ViewGroup.LayoutParams params = icon.getLayoutParams();
+        int width = params != null && params.width >= 0 ? params.width : size,
+                height = params != null && params.height >= 0 ? params.height : size;
+        icon.measure(
+                MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY)
+        );
+        icon.layout(0, 0, icon.getMeasuredWidth(), icon.getMeasuredHeight());
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (mSlots.isEmpty() || mItemsAlpha <= 0f) {
+            return;
+        }
+        final int width = getWidth(), height = getHeight();
+        final int layer;
+        if (mItemsAlpha < 1f) {
+            layer = canvas.saveLayerAlpha(0, 0, width, height, (int) (mItemsAlpha * 255), Canvas.ALL_SAVE_FLAG);
+        } else {
+            layer = -1;
+        }
+        if (mItemBackground != null && !mItemBackground.getBounds().isEmpty()) {
+            mItemBackground.draw(canvas);
+        }
+        final float textBottom, textCenterY, baseline;
+        {
+            mTextPaint.getFontMetrics(mFontMetrics);
+            textBottom = height - mMetrics.textUnderPaddingVisible;
+            textCenterY = textBottom - (mFontMetrics.descent - mFontMetrics.ascent) / 2f;
+            baseline = textBottom - mFontMetrics.descent;
+        }
+        for (Slot slot : mSlots) {
+            final float centerX = slot.left + slot.width / 2f;
+            if (slot.icon != null) {
+                if (slot.icon.isLayoutRequested()) {
+                    layoutIcon(slot.icon, slot.iconSize);
+                }
+                int iconWidth = slot.icon.getWidth(), iconHeight = slot.icon.getHeight();
+                int save = canvas.save();
+                canvas.translate((int) (centerX - iconWidth / 2f), (height - (iconHeight + slot.iconBottomInset)) / 2);
+                slot.icon.draw(canvas);
+                canvas.restoreToCount(save);
+            }
+            if (slot.label != null && slot.textAlpha > 0f) {
+                {
+                    mTextPaint.setColor(slot.textColor);
+                    mTextPaint.setAlpha((int) (Color.alpha(slot.textColor) * slot.textAlpha));
+                }
+                int save = canvas.save();
+                canvas.scale(slot.textScale, slot.textScale, centerX, textCenterY);
+                canvas.drawText(slot.label, 0, slot.label.length(), centerX - slot.labelWidth / 2f, baseline, mTextPaint);
+                canvas.restoreToCount(save);
+            }
+        }
+        if (layer >= 0) {
+            canvas.restoreToCount(layer);
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        setMeasuredDimension(
+                getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec),
+                resolveSize(mMetrics.itemHeight + getPaddingTop() + getPaddingBottom(), heightMeasureSpec)
+        );
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        resetSlots(false);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        if (getVisibility() == View.VISIBLE) {
+            mItems.assertMoreThanMinSize(size());
+            mItems.assertLessThanMaxSize(size());
+        }
+    }
+
+    // detached, stopped and hidden bars jump straight to the end.
+    protected boolean shouldAnimate() {
+        return ViewCompat.isAttachedToWindow(this) && getWindowVisibility() == VISIBLE && isShown();
+    }
+
+    // moved fully off-screen by hide() or a behavior.
+    protected boolean isOffScreen() {
+        return getHeight() > 0 && getTranslationY() >= getHeight();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        if (visibility != VISIBLE) {
+            endAnimations();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        endAnimations();
+        super.onDetachedFromWindow();
+    }
+
+    protected void endAnimations() {
+        mVisibilityAnimator.end();
+        mAnimationEngine.end();
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        {
+            mMetrics = new BottomNavigationBarMetrics(getResources());
+            mTextPaint.setTextSize(mMetrics.textSize);
+        }
+        resetSlots(false);
+        requestLayout();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (!isEnabled()) {
+            return super.onTouchEvent(event);
+        }
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN: {
+                setPressedIndex(indexAt(event.getX(), event.getY()), event.getX(), event.getY());
+                return mPressedIndex >= 0;
+            }
+            case MotionEvent.ACTION_MOVE: {
+                if (mPressedIndex < 0) {
+                    return false;
+                }
+                if (indexAt(event.getX(), event.getY()) != mPressedIndex) {
+                    setPressedIndex(-1, event.getX(), event.getY());
+                } else if (mItemBackground != null) {
+                    DrawableCompat.setHotspot(mItemBackground, event.getX(), event.getY());
+                }
+                return true;
+            }
+            case MotionEvent.ACTION_UP: {
+                int index = indexAt(event.getX(), event.getY());
+                boolean clicked = index >= 0 && index == mPressedIndex;
+                setPressedIndex(-1, event.getX(), event.getY());
+                if (clicked) {
+                    performClick();
+                    onSlotClicked(index);
+                }
+                return true;
+            }
+            case MotionEvent.ACTION_CANCEL: {
+                setPressedIndex(-1, event.getX(), event.getY());
+                return true;
+            }
+        }
+        return super.onTouchEvent(event);
+    }
+
+    protected void setPressedIndex(int index, float x, float y) {
+        if (mPressedIndex == index) {
+            return;
+        }
+        {
+            mPressedIndex = index;
+        }
+        if (mItemBackground == null) {
+            return;
+        }
+        if (index >= 0) {
+            // the bounds stay on the released slot so the ripple can finish there.
+            getSlotBounds(mSlots.get(index), mPressedBounds);
+            mItemBackground.setBounds(mPressedBounds);
+            DrawableCompat.setHotspot(mItemBackground, x, y);
+        }
+        mItemBackground.setState(index >= 0 ? STATE_PRESSED : STATE_ENABLED);
+        invalidate();
+    }
+
+    @Override
+    protected boolean verifyDrawable(@NonNull Drawable who) {
+        return who == mItemBackground || super.verifyDrawable(who);
+    }
+
+    @Override
+    public void jumpDrawablesToCurrentState() {
+        super.jumpDrawablesToCurrentState();
+        if (mItemBackground != null) {
+            DrawableCompat.jumpToCurrentState(mItemBackground);
+        }
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event) {
+        return mTouchHelper.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
+    }
+
+    protected void onSlotClicked(int index) {
+        check(mSlots.get(index).item.getIdRes());
+        mTouchHelper.sendEventForVirtualView(index, AccessibilityEvent.TYPE_VIEW_CLICKED);
+    }
+
+    protected int indexAt(float x, float y) {
+        if (y < 0 || y >= getHeight()) {
+            return -1;
+        }
+        for (int i = 0; i < mSlots.size(); i++) {
+            Slot slot = mSlots.get(i);
+            if (x >= slot.left && x < slot.left + slot.width) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void getSlotBounds(Slot slot, Rect outRect) {
+        outRect.set((int) slot.left, 0, (int) (slot.left + slot.width), getHeight());
+    }
+
+    private String getSlotDescription(Slot slot) {
+        String text = slot.item.getText(true);
+        if (text == null) {
+            text = slot.item.getText(false);
+        }
+        return text != null ? text : "";
+    }
+
+    // there are no item views here, so onItemLayoutRequested() is never reported.
+    @Override
+    public void setPerformanceListener(@Nullable PerformanceListener listener) {
+        mPerformanceListener = listener;
+        mAnimationEngine.setPerformanceListener(listener, this);
+        mVisibilityAnimator.setPerformanceListener(listener);
+    }
+
+    public BottomNavigationBarMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    public void setItemWidthFixed(boolean fixed) {
+        mItemWidthFixed = fixed;
+        resetSlots(false);
+    }
+
+    @Override
+    public void setDuration(long duration) {
+        mDuration = duration;
+    }
+
+    @Override
+    public void setInterpolator(TimeInterpolator interpolator) {
+        mInterpolator = interpolator;
+    }
+
+    private class TouchHelper extends ExploreByTouchHelper {
+
+        private final Rect mBounds = new Rect();
+
+        TouchHelper(View host) {
+            super(host);
+        }
+
+        @Override
+        protected int getVirtualViewAt(float x, float y) {
+            int index = indexAt(x, y);
+            return index >= 0 ? index : INVALID_ID;
+        }
+
+        @Override
+        protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+            for (int i = 0; i < mSlots.size(); i++) {
+                virtualViewIds.add(i);
+            }
+        }
+
+        @Override
+        protected void onPopulateEventForVirtualView(int virtualViewId, AccessibilityEvent event) {
+            if (virtualViewId < mSlots.size()) {
+                Slot slot = mSlots.get(virtualViewId);
+                event.setContentDescription(getSlotDescription(slot));
+                event.setChecked(slot.item.getIdRes() == mCheckedId);
+            } else {
+                event.setContentDescription("");
+            }
+        }
+
+        @Override
+        protected void onPopulateNodeForVirtualView(int virtualViewId, AccessibilityNodeInfoCompat node) {
+            if (virtualViewId >= mSlots.size()) {
+                mBounds.setEmpty();
+                node.setContentDescription("");
+                node.setBoundsInParent(mBounds);
+                return;
+            }
+            Slot slot = mSlots.get(virtualViewId);
+            {
+                getSlotBounds(slot, mBounds);
+                node.setBoundsInParent(mBounds);
+            }
+            node.setClassName(RadioButton.class.getName());
+            node.setContentDescription(getSlotDescription(slot));
+            node.setCheckable(true);
+            node.setChecked(slot.item.getIdRes() == mCheckedId);
+            node.setClickable(true);
+            node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+        }
+
+        @Override
+        protected boolean onPerformActionForVirtualView(int virtualViewId, int action, @Nullable Bundle arguments) {
+            if (action == AccessibilityNodeInfoCompat.ACTION_CLICK && virtualViewId < mSlots.size()) {
+                onSlotClicked(virtualViewId);
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+    private static class Slot {
+
+        INavigationBarItem item;
+
+        @Nullable
+        View icon;
+
+        @Nullable
+        String text;
+
+        @Nullable
+        CharSequence label;
+        float labelWidth;
+
+        boolean isNew = true;
+        boolean oldIsChecked, animatingIsChecked, animatingOldIsChecked;
+
+        float left, fromLeft, toLeft;
+        float width, fromWidth, toWidth;
+        float textAlpha = 1f, fromTextAlpha, toTextAlpha;
+        float textScale = 1f, fromTextScale, toTextScale;
+
+        final ColorRamp textColorRamp = new ColorRamp();
+        boolean textColorAnimating;
+
+        @ColorInt
+        int textColor;
+
+        int iconSize;
+        int iconBottomInset;
+
+        void bind(INavigationBarItem item) {
+            this.item = item;
+            this.icon = null;
+            this.text = null;
+            this.label = null;
+        }
+
+    }
+
+}
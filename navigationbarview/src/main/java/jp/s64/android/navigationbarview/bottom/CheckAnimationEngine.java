@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jp.s64.android.navigationbarview.bottom;
+
+import android.animation.Animator;
+import android.animation.TimeInterpolator;
+import android.animation.ValueAnimator;
+import android.support.annotation.Nullable;
+import android.view.View;
+
+import jp.s64.android.navigationbarview.view.INavigationBarView;
+
+class CheckAnimationEngine implements ValueAnimator.AnimatorUpdateListener {
+
+    private final ValueAnimator mAnimator;
+    private final Callback mCallback;
+
+    @Nullable
+    private INavigationBarView.PerformanceListener mPerformanceListener = null;
+
+    @Nullable
+    private View mNavigationBar = null;
+
+    CheckAnimationEngine(Callback callback) {
+        {
+            mCallback = callback;
+        }
+        mAnimator = ValueAnimator.ofFloat(0f, 1f);
+        mAnimator.addUpdateListener(this);
+    }
+
+    void start(long duration, TimeInterpolator interpolator) {
+        cancel();
+        {
+            mAnimator.setDuration(duration);
+            mAnimator.setInterpolator(interpolator);
+        }
+        mAnimator.start();
+        if (mPerformanceListener != null) {
+            mPerformanceListener.onAnimationStarted(mNavigationBar, INavigationBarView.PerformanceListener.ANIMATION_CHECK);
+        }
+    }
+
+    void addListener(Animator.AnimatorListener listener) {
+        mAnimator.addListener(listener);
+    }
+
+    // runs the last frame immediately.
+    void end() {
+        if (mAnimator.isStarted()) {
+            mAnimator.end();
+        }
+    }
+
+    void cancel() {
+        if (!mAnimator.isStarted()) {
+            return;
+        }
+        mAnimator.cancel();
+        if (mPerformanceListener != null) {
+            mPerformanceListener.onAnimationCanceled(mNavigationBar, INavigationBarView.PerformanceListener.ANIMATION_CHECK);
+        }
+    }
+
+    void setPerformanceListener(@Nullable INavigationBarView.PerformanceListener listener, @Nullable View navigationBar) {
+        mPerformanceListener = listener;
+        mNavigationBar = navigationBar;
+    }
+
+    boolean isRunning() {
+        return mAnimator.isStarted();
+    }
+
+    @Override
+    public void onAnimationUpdate(ValueAnimator animation) {
+        final INavigationBarView.PerformanceListener listener = mPerformanceListener;
+        final long start = listener != null ? System.nanoTime() : 0;
+        mCallback.onAnimationFrame(animation.getAnimatedFraction());
+        if (listener != null) {
+            listener.onAnimationFrame(mNavigationBar, INavigationBarView.PerformanceListener.ANIMATION_CHECK, System.nanoTime() - start);
+        }
+    }
+
+    interface Callback {
+
+        void onAnimationFrame(float fraction);
+
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jp.s64.android.navigationbarview.bottom;
+
+import android.animation.Animator;
+import android.support.annotation.Nullable;
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+
+public class LayerAnimatorListener implements Animator.AnimatorListener {
+
+    @Nullable
+    private View mView;
+
+    @Nullable
+    private View mLayeredView = null;
+    private int mPreviousLayerType;
+
+    private boolean mEnabled = true;
+
+    @Nullable
+    private OnLayerUsageListener mListener = null;
+
+    public LayerAnimatorListener(@Nullable View view) {
+        mView = view;
+    }
+
+    public void setView(@Nullable View view) {
+        mView = view;
+    }
+
+    public void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+        if (!enabled) {
+            release();
+        }
+    }
+
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    public void setOnLayerUsageListener(@Nullable OnLayerUsageListener listener) {
+        mListener = listener;
+    }
+
+    @Override
+    public void onAnimationStart(Animator animation) {
+        acquire();
+    }
+
+    @Override
+    public void onAnimationEnd(Animator animation) {
+        release();
+    }
+
+    @Override
+    public void onAnimationCancel(Animator animation) {
+        release();
+    }
+
+    @Override
+    public void onAnimationRepeat(Animator animation) {
+
+    }
+
+    protected void acquire() {
+        final View view = mView;
+        if (!mEnabled || view == null || mLayeredView != null || view.getLayerType() == View.LAYER_TYPE_HARDWARE) {
+            return;
+        }
+        {
+            mLayeredView = view;
+            mPreviousLayerType = view.getLayerType();
+        }
+        view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        if (ViewCompat.isAttachedToWindow(view)) {
+            view.buildLayer();
+        }
+        if (mListener != null) {
+            mListener.onLayerAcquired(view);
+        }
+    }
+
+    protected void release() {
+        final View view = mLayeredView;
+        if (view == null) {
+            return;
+        }
+        {
+            mLayeredView = null;
+        }
+        view.setLayerType(mPreviousLayerType, null);
+        if (mListener != null) {
+            mListener.onLayerReleased(view);
+        }
+    }
+
+    public interface OnLayerUsageListener {
+
+        void onLayerAcquired(View view);
+
+        void onLayerReleased(View view);
+
+    }
+
+}
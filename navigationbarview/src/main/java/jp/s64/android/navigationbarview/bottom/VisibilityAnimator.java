@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jp.s64.android.navigationbarview.bottom;
+
+import android.animation.Animator;
+import android.animation.ValueAnimator;
+import android.support.annotation.Nullable;
+import android.support.v4.view.animation.FastOutSlowInInterpolator;
+import android.view.View;
+
+import jp.s64.android.navigationbarview.view.INavigationBarView;
+import jp.s64.android.navigationbarview.view.NavigationBarTrace;
+
+// the show()/hide() slide and items fade shared by both bottom bars.
+class VisibilityAnimator<V extends View & INavigationBarView> {
+
+    private final V mView;
+    private final Callback mCallback;
+
+    @Nullable
+    private Animator.AnimatorListener mItemsAlphaListener = null;
+
+    @Nullable
+    private INavigationBarView.PerformanceListener mPerformanceListener = null;
+
+    @Nullable
+    private ValueAnimator mShowAnimator = null;
+
+    @Nullable
+    private ValueAnimator mHideAnimator = null;
+
+    // the items fade started by the running show/hide animator.
+    @Nullable
+    private ValueAnimator mItemsAlphaAnimator = null;
+
+    VisibilityAnimator(V view, Callback callback) {
+        mView = view;
+        mCallback = callback;
+    }
+
+    // e.g. a LayerAnimatorListener for the items fade; only added to animations that actually run.
+    void setItemsAlphaListener(@Nullable Animator.AnimatorListener listener) {
+        mItemsAlphaListener = listener;
+    }
+
+    void setPerformanceListener(@Nullable INavigationBarView.PerformanceListener listener) {
+        mPerformanceListener = listener;
+    }
+
+    void show(@Nullable INavigationBarView.OnVisibilityAnimateListener doAnimate, boolean animate) {
+        if (mShowAnimator != null) {
+            return;
+        }
+        if (mHideAnimator != null) {
+            cancel(mHideAnimator, INavigationBarView.PerformanceListener.ANIMATION_HIDE);
+            mHideAnimator = null;
+        }
+        if (doAnimate != null) {
+            mShowAnimator = start(doAnimate, animate, INavigationBarView.PerformanceListener.ANIMATION_SHOW, NavigationBarTrace.SHOW_FRAME, 0, 300l, 1f, 500l);
+        }
+    }
+
+    void hide(@Nullable INavigationBarView.OnVisibilityAnimateListener doAnimate, boolean animate) {
+        if (mHideAnimator != null) {
+            return;
+        }
+        if (mShowAnimator != null) {
+            cancel(mShowAnimator, INavigationBarView.PerformanceListener.ANIMATION_SHOW);
+            mShowAnimator = null;
+        }
+        if (doAnimate != null) {
+            mHideAnimator = start(doAnimate, animate, INavigationBarView.PerformanceListener.ANIMATION_HIDE, NavigationBarTrace.HIDE_FRAME, mView.getHeight(), 450l, 0f, 250l);
+        }
+    }
+
+    // leaves the bar where it is, e.g. before its offset is set directly.
+    void cancel() {
+        if (mShowAnimator != null) {
+            cancel(mShowAnimator, INavigationBarView.PerformanceListener.ANIMATION_SHOW);
+            mShowAnimator = null;
+        }
+        if (mHideAnimator != null) {
+            cancel(mHideAnimator, INavigationBarView.PerformanceListener.ANIMATION_HIDE);
+            mHideAnimator = null;
+        }
+    }
+
+    // runs the last frames immediately.
+    void end() {
+        if (mShowAnimator != null && mShowAnimator.isStarted()) {
+            mShowAnimator.end();
+        }
+        if (mHideAnimator != null && mHideAnimator.isStarted()) {
+            mHideAnimator.end();
+        }
+        if (mItemsAlphaAnimator != null && mItemsAlphaAnimator.isStarted()) {
+            mItemsAlphaAnimator.end();
+        }
+    }
+
+    // a zero duration applies the end values on start(), so off-screen or stopped bars jump straight there.
+    private ValueAnimator start(
+            final INavigationBarView.OnVisibilityAnimateListener doAnimate,
+            boolean animate,
+            final int animation,
+            final String section,
+            final float toY,
+            long duration,
+            final float toAlpha,
+            long itemsDuration
+    ) {
+        final float fromAlpha = mCallback.getItemsAlpha();
+        final ValueAnimator innerAnimator = ValueAnimator.ofFloat(fromAlpha, toAlpha);
+        innerAnimator.setDuration(animate ? itemsDuration : 0l);
+        if (animate && mItemsAlphaListener != null) {
+            innerAnimator.addListener(mItemsAlphaListener);
+        }
+        innerAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animator) {
+                final INavigationBarView.PerformanceListener listener = mPerformanceListener;
+                final long start = listener != null ? System.nanoTime() : 0;
+                final boolean trace = NavigationBarTrace.beginSection(section);
+                try {
+                    mCallback.setItemsAlpha(fromAlpha + (toAlpha - fromAlpha) * animator.getAnimatedFraction());
+                } finally {
+                    NavigationBarTrace.endSection(trace);
+                }
+                if (listener != null) {
+                    listener.onAnimationFrame(mView, animation, System.nanoTime() - start);
+                }
+            }
+        });
+        innerAnimator.setInterpolator(new FastOutSlowInInterpolator());
+
+        final float fromY = mView.getTranslationY();
+        final ValueAnimator ret = ValueAnimator.ofFloat(fromY, toY);
+        ret.setDuration(animate ? duration : 0l);
+        ret.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animator) {
+                final INavigationBarView.PerformanceListener listener = mPerformanceListener;
+                final long start = listener != null ? System.nanoTime() : 0;
+                final boolean trace = NavigationBarTrace.beginSection(section);
+                try {
+                    mView.setTranslationY(fromY + (toY - fromY) * animator.getAnimatedFraction());
+                    doAnimate.onVisibilityAnimate(mView);
+                } finally {
+                    NavigationBarTrace.endSection(trace);
+                }
+                if (listener != null) {
+                    listener.onAnimationFrame(mView, animation, System.nanoTime() - start);
+                }
+            }
+        });
+        ret.addListener(new Animator.AnimatorListener() {
+            @Override
+            public void onAnimationStart(Animator animator) {
+                mItemsAlphaAnimator = innerAnimator;
+                innerAnimator.start();
+            }
+
+            @Override
+            public void onAnimationEnd(Animator animator) {
+
+            }
+
+            @Override
+            public void onAnimationCancel(Animator animator) {
+                innerAnimator.cancel();
+            }
+
+            @Override
+            public void onAnimationRepeat(Animator animator) {
+
+            }
+        });
+        ret.setInterpolator(new FastOutSlowInInterpolator());
+        ret.start();
+        if (mPerformanceListener != null) {
+            mPerformanceListener.onAnimationStarted(mView, animation);
+        }
+        return ret;
+    }
+
+    private void cancel(ValueAnimator animator, int animation) {
+        if (mPerformanceListener != null && animator.isStarted()) {
+            mPerformanceListener.onAnimationCanceled(mView, animation);
+        }
+        animator.cancel();
+    }
+
+    interface Callback {
+
+        float getItemsAlpha();
+
+        void setItemsAlpha(float alpha);
+
+    }
+
+}
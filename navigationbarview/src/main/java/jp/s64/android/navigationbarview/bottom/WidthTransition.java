@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jp.s64.android.navigationbarview.bottom;
+
+import android.animation.TimeInterpolator;
+import android.animation.ValueAnimator;
+import android.support.annotation.Nullable;
+import android.view.View;
+import android.view.ViewGroup;
+
+import jp.s64.android.navigationbarview.view.INavigationBarView;
+
+class WidthTransition implements ValueAnimator.AnimatorUpdateListener, View.OnLayoutChangeListener {
+
+    private final ViewGroup mContainer;
+    private final ValueAnimator mAnimator;
+
+    private int[] mFromLeft = new int[0];
+    private int[] mFromRight = new int[0];
+    private int[] mToLeft = new int[0];
+    private int[] mToRight = new int[0];
+
+    private int mCount = 0;
+    private float mFraction = 1f;
+
+    @Nullable
+    private INavigationBarView.PerformanceListener mPerformanceListener = null;
+
+    @Nullable
+    private View mNavigationBar = null;
+
+    WidthTransition(ViewGroup container) {
+        {
+            mContainer = container;
+        }
+        mAnimator = ValueAnimator.ofFloat(0f, 1f);
+        mAnimator.addUpdateListener(this);
+        mContainer.addOnLayoutChangeListener(this);
+    }
+
+    void begin() {
+        cancelAnimator();
+        final int count = mContainer.getChildCount();
+        if (mFromLeft.length < count) {
+            mFromLeft = new int[count];
+            mFromRight = new int[count];
+            mToLeft = new int[count];
+            mToRight = new int[count];
+        }
+        for (int i = 0; i < count; i++) {
+            View child = mContainer.getChildAt(i);
+            mFromLeft[i] = mToLeft[i] = child.getLeft();
+            mFromRight[i] = mToRight[i] = child.getRight();
+        }
+        mCount = count;
+    }
+
+    void setTarget(int index, int left, int right) {
+        mToLeft[index] = left;
+        mToRight[index] = right;
+    }
+
+    void start() {
+        mFraction = 0f;
+        mAnimator.start();
+        if (mPerformanceListener != null) {
+            mPerformanceListener.onAnimationStarted(mNavigationBar, INavigationBarView.PerformanceListener.ANIMATION_WIDTH);
+        }
+    }
+
+    // jumps to the target bounds.
+    void end() {
+        if (mAnimator.isStarted()) {
+            mAnimator.end();
+        }
+    }
+
+    void cancel() {
+        cancelAnimator();
+        mCount = 0;
+        mFraction = 1f;
+    }
+
+    boolean isRunning() {
+        return mAnimator.isStarted();
+    }
+
+    void setPerformanceListener(@Nullable INavigationBarView.PerformanceListener listener, @Nullable View navigationBar) {
+        mPerformanceListener = listener;
+        mNavigationBar = navigationBar;
+    }
+
+    private void cancelAnimator() {
+        if (!mAnimator.isStarted()) {
+            return;
+        }
+        mAnimator.cancel();
+        if (mPerformanceListener != null) {
+            mPerformanceListener.onAnimationCanceled(mNavigationBar, INavigationBarView.PerformanceListener.ANIMATION_WIDTH);
+        }
+    }
+
+    void setDuration(long duration) {
+        mAnimator.setDuration(duration);
+    }
+
+    long getDuration() {
+        return mAnimator.getDuration();
+    }
+
+    void setInterpolator(TimeInterpolator interpolator) {
+        mAnimator.setInterpolator(interpolator);
+    }
+
+    TimeInterpolator getInterpolator() {
+        return mAnimator.getInterpolator();
+    }
+
+    @Override
+    public void onAnimationUpdate(ValueAnimator animation) {
+        final INavigationBarView.PerformanceListener listener = mPerformanceListener;
+        final long start = listener != null ? System.nanoTime() : 0;
+        {
+            mFraction = animation.getAnimatedFraction();
+            apply();
+        }
+        if (listener != null) {
+            listener.onAnimationFrame(mNavigationBar, INavigationBarView.PerformanceListener.ANIMATION_WIDTH, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft, int oldTop, int oldRight, int oldBottom) {
+        if (!isRunning() || mCount != mContainer.getChildCount()) {
+            return;
+        }
+        // a real layout pass has just placed the children at their final bounds.
+        for (int i = 0; i < mCount; i++) {
+            View child = mContainer.getChildAt(i);
+            mToLeft[i] = child.getLeft();
+            mToRight[i] = child.getRight();
+        }
+        apply();
+    }
+
+    private void apply() {
+        if (mCount != mContainer.getChildCount()) {
+            return;
+        }
+        for (int i = 0; i < mCount; i++) {
+            View child = mContainer.getChildAt(i);
+            int left = mFromLeft[i] + Math.round((mToLeft[i] - mFromLeft[i]) * mFraction),
+                    right = mFromRight[i] + Math.round((mToRight[i] - mFromRight[i]) * mFraction);
+            if (child.getLeft() != left || child.getRight() != right) {
+                child.layout(left, child.getTop(), right, child.getBottom());
+            }
+        }
+    }
+
+}
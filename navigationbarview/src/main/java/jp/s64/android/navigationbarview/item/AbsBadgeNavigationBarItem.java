@@ -17,80 +17,110 @@
 package jp.s64.android.navigationbarview.item;
 
 import android.content.Context;
-import android.graphics.Typeface;
 import android.support.annotation.Nullable;
-import android.support.v4.content.ContextCompat;
-import android.support.v4.content.res.ResourcesCompat;
-import android.support.v4.view.ViewCompat;
-import android.support.v7.widget.AppCompatTextView;
-import android.util.TypedValue;
-import android.view.Gravity;
 import android.view.View;
-import android.widget.RelativeLayout;
-import android.widget.TextView;
 
-import jp.s64.android.navigationbarview.R;
+import java.util.concurrent.atomic.AtomicReference;
 
 public abstract class AbsBadgeNavigationBarItem extends AbsNavigationBarItem {
 
-    protected AppCompatTextView mBadge;
+    public static final int MAX_BADGE_COUNT = 99;
 
+    private static final String OVERFLOW_BADGE_TEXT = MAX_BADGE_COUNT + "+";
+    private static final String[] sBadgeCountTexts = new String[MAX_BADGE_COUNT + 1];
+
+    private static final Object NO_PENDING = new Object();
+    private static final Object NULL_TEXT = new Object();
+
+    private final AtomicReference<Object> mPendingBadge = new AtomicReference<>(NO_PENDING);
+
+    @Nullable
+    protected BadgeDrawable mBadge;
+
+    @Nullable
     protected CharSequence mBadgeText;
 
+    // the icon of the bound view, so a badge set between frames can be attached without waiting for updateIcon().
+    @Nullable
+    private BadgeIconLayout mBadgeIcon;
+
     @Override
     public View updateIcon(@Nullable View original, Context context, int width, int height, IconAnimator animator) {
-        RelativeLayout ret = (RelativeLayout) super.updateIcon(original, context, width, height, animator);
-        AppCompatTextView badge = null;
+        BadgeIconLayout ret = (BadgeIconLayout) super.updateIcon(original, context, width, height, animator);
         {
-            for (int i = 0; i < ret.getChildCount(); i++) {
-                View v = ret.getChildAt(i);
-                if (v instanceof TextView) {
-                    badge = (AppCompatTextView) v;
-                    break;
-                }
-            }
+            mBadgeIcon = ret;
+        }
+        if (mBadge == null && mBadgeText != null) {
+            mBadge = new BadgeDrawable(context);
+            mBadge.setText(mBadgeText);
+            mBadgeText = null;
         }
-        if (badge == null) {
-            CharSequence oldText;
-            if (mBadgeText != null) {
-                oldText = mBadgeText;
-                mBadgeText = null;
-            } else {
-                oldText = mBadge != null ? mBadge.getText() : null;
-            }
-            badge = mBadge = new AppCompatTextView(context);
-            int size = context.getResources().getDimensionPixelSize(R.dimen.item_badge_size);
-            {
-                RelativeLayout.LayoutParams params = new RelativeLayout.LayoutParams(size, size);
-                params.addRule(RelativeLayout.ALIGN_PARENT_TOP, RelativeLayout.TRUE);
-                params.addRule(RelativeLayout.ALIGN_PARENT_RIGHT, RelativeLayout.TRUE);
-                params.topMargin = (size / 4) * -1;
-                params.rightMargin = (size / 3) * -1;
-                badge.setLayoutParams(params);
-                badge.setIncludeFontPadding(false);
-                badge.setGravity(Gravity.CENTER);
-            }
-            {
-                badge.setTextColor(ContextCompat.getColor(context, R.color.item_badge_text_color));
-                ViewCompat.setBackground(badge, ResourcesCompat.getDrawable(context.getResources(), R.drawable.item_badge_background, context.getTheme()));
-                badge.setTextSize(TypedValue.COMPLEX_UNIT_PX, context.getResources().getDimension(R.dimen.item_badge_text_size));
-                badge.setTypeface(null, Typeface.BOLD);
-            }
-            {
-                setBadgeText(oldText);
-            }
-            ret.addView(badge);
+        if (ret.getBadge() != mBadge) {
+            ret.setBadge(mBadge);
         }
         return ret;
     }
 
+    @Override
+    public void onItemViewRemoved(View removedView) {
+        super.onItemViewRemoved(removedView);
+        mBadgeIcon = null;
+    }
+
     public void setBadgeText(@Nullable CharSequence text) {
+        mPendingBadge.set(NO_PENDING);
+        applyBadgeText(text);
+    }
+
+    public void setBadgeCount(int count) {
+        setBadgeText(formatBadgeCount(count));
+    }
+
+    public void postBadgeText(@Nullable CharSequence text) {
+        Object value = text != null ? text.toString() : NULL_TEXT;
+        if (mPendingBadge.getAndSet(value) == NO_PENDING) {
+            BadgeUpdateDispatcher.getInstance().enqueue(this);
+        }
+    }
+
+    public void postBadgeCount(int count) {
+        postBadgeText(formatBadgeCount(count));
+    }
+
+    void applyPendingBadge() {
+        Object value = mPendingBadge.getAndSet(NO_PENDING);
+        if (value == NO_PENDING) {
+            return;
+        }
+        applyBadgeText(value == NULL_TEXT ? null : (CharSequence) value);
+    }
+
+    protected void applyBadgeText(@Nullable CharSequence text) {
         if (mBadge != null) {
             mBadge.setText(text);
-            mBadge.setAlpha(text != null ? 1f : 0f);
+        } else if (text != null && mBadgeIcon != null) {
+            // bound without a badge; the icon is not updated again until the next check.
+            mBadge = new BadgeDrawable(mBadgeIcon.getContext());
+            mBadge.setText(text);
+            mBadgeText = null;
+            mBadgeIcon.setBadge(mBadge);
         } else {
             mBadgeText = text;
         }
     }
 
+    @Nullable
+    public static String formatBadgeCount(int count) {
+        if (count <= 0) {
+            return null;
+        } else if (count > MAX_BADGE_COUNT) {
+            return OVERFLOW_BADGE_TEXT;
+        }
+        String ret = sBadgeCountTexts[count];
+        if (ret == null) {
+            ret = sBadgeCountTexts[count] = String.valueOf(count);
+        }
+        return ret;
+    }
+
 }
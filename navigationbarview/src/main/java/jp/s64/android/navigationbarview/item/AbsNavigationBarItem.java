@@ -16,68 +16,109 @@
 
 package jp.s64.android.navigationbarview.item;
 
-import android.animation.ArgbEvaluator;
 import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
 import android.graphics.PorterDuff;
 import android.graphics.drawable.Drawable;
 import android.support.annotation.ColorInt;
 import android.support.annotation.DrawableRes;
 import android.support.annotation.Nullable;
 import android.support.v4.graphics.drawable.DrawableCompat;
+import android.support.v7.content.res.AppCompatResources;
 import android.support.v7.widget.AppCompatImageView;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.FrameLayout;
 import android.widget.ImageView;
-import android.widget.RelativeLayout;
 
 public abstract class AbsNavigationBarItem implements INavigationBarItem {
 
+    private boolean mIconCacheEnabled = true;
+    // opt-in: the process-wide cache keeps its bitmaps after every bar is gone, and only shares tinted icons.
+    private boolean mSharedIconCacheEnabled = false;
+
+    @Nullable
+    private Configuration mCachedConfiguration = null;
+
+    private final CachedIcon mActiveIcon = new CachedIcon();
+    private final CachedIcon mInactiveIcon = new CachedIcon();
+
+    private final SharedIcon mActiveSharedIcon = new SharedIcon();
+    private final SharedIcon mInactiveSharedIcon = new SharedIcon();
+
+    private boolean mColorsResolved = false;
+    private boolean mHasActiveColor, mHasInactiveColor;
+
+    @ColorInt
+    private int mActiveColor, mInactiveColor;
+
+    private final ColorRamp mIconColorRamp = new ColorRamp();
+
+    @Nullable
+    private IconAtlas mIconAtlas = null;
+
     @Override
     public View updateIcon(@Nullable View original, Context context, int width, int height, IconAnimator animator) {
-        RelativeLayout ret;
+        BadgeIconLayout ret;
         AppCompatImageView img;
         if (original == null) {
-            ret = new RelativeLayout(context);
+            ret = new BadgeIconLayout(context);
             {
                 ret.setLayoutParams(new ViewGroup.LayoutParams(width, height));
             }
-            img = new AppCompatImageView(context);
-            RelativeLayout.LayoutParams params = new RelativeLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT);
+            img = new BadgeIconLayout.IconView(context);
+            FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT);
             {
                 img.setLayoutParams(params);
                 img.setScaleType(ImageView.ScaleType.FIT_CENTER);
             }
             ret.addView(img);
         } else {
-            ret = (RelativeLayout) original;
+            ret = (BadgeIconLayout) original;
             img = (AppCompatImageView) ret.getChildAt(0);
         }
         {
-            img.setImageResource(getDrawableIdRes(animator.isChecked));
+            validateConfiguration(context);
+            resolveColors();
         }
-        Integer colorInt;
-        if (animator.isChecked != animator.oldIsChecked) {
-            ArgbEvaluator ev = new ArgbEvaluator();
-            Integer before, after;
-            {
-                before = getColorInt(animator.oldIsChecked);
-                after = getColorInt(animator.isChecked);
-            }
-            if (before != null && after != null) {
-                colorInt = (int) ev.evaluate(
-                        animator.fraction,
-                        before,
-                        after
-                );
-            } else {
-                colorInt = null;
+        final boolean tinted;
+        final int colorInt;
+        ColorStateList rampList = null;
+        if (animator.isChecked() != animator.isOldChecked()) {
+            tinted = mHasActiveColor && mHasInactiveColor;
+            colorInt = tinted ? mIconColorRamp.get(animator.getFraction(), animator.isChecked()) : 0;
+            if (tinted) {
+                rampList = mIconColorRamp.getList(animator.getFraction(), animator.isChecked());
             }
         } else {
-            colorInt = getColorInt(animator.isChecked);
+            tinted = animator.isChecked() ? mHasActiveColor : mHasInactiveColor;
+            colorInt = animator.isChecked() ? mActiveColor : mInactiveColor;
         }
-        {
+        if (mIconCacheEnabled) {
+            Drawable drawable = null;
+            // color ramp frames produce a new tint every frame, so they stay on the per-item drawable.
+            boolean rampFrame = rampList != null;
+            if (mSharedIconCacheEnabled && mIconAtlas == null && tinted && !rampFrame) {
+                Integer iconSize = getIconPixelSize();
+                drawable = getSharedIcon(context, animator.isChecked(), iconSize != null ? iconSize : Math.min(width, height), colorInt);
+            }
+            if (drawable == null) {
+                CachedIcon icon = getCachedIcon(context, animator.isChecked());
+                {
+                    icon.applyTint(tinted, colorInt, rampList);
+                }
+                drawable = icon.drawable;
+            }
+            if (img.getDrawable() != drawable) {
+                img.setImageDrawable(drawable);
+            }
+        } else {
+            {
+                img.setImageResource(getDrawableIdRes(animator.isChecked()));
+            }
             Drawable d = DrawableCompat.wrap(img.getDrawable()).mutate();
-            if (colorInt != null) {
+            if (tinted) {
                 DrawableCompat.setTint(d, colorInt);
                 DrawableCompat.setTintMode(d, PorterDuff.Mode.SRC_IN);
             } else {
@@ -98,6 +139,108 @@ public abstract class AbsNavigationBarItem implements INavigationBarItem {
         // no-op
     }
 
+    public void setIconCacheEnabled(boolean enabled) {
+        mIconCacheEnabled = enabled;
+        invalidateIconCache();
+    }
+
+    public boolean isIconCacheEnabled() {
+        return mIconCacheEnabled;
+    }
+
+    public void setSharedIconCacheEnabled(boolean enabled) {
+        mSharedIconCacheEnabled = enabled;
+        invalidateIconCache();
+    }
+
+    public boolean isSharedIconCacheEnabled() {
+        return mSharedIconCacheEnabled;
+    }
+
+    public void setIconAtlas(@Nullable IconAtlas atlas) {
+        if (mIconAtlas == atlas) {
+            return;
+        }
+        mIconAtlas = atlas;
+        invalidateIconCache();
+    }
+
+    @Nullable
+    public IconAtlas getIconAtlas() {
+        return mIconAtlas;
+    }
+
+    public void invalidateIconCache() {
+        mActiveIcon.clear();
+        mInactiveIcon.clear();
+        mActiveSharedIcon.clear();
+        mInactiveSharedIcon.clear();
+    }
+
+    public void invalidateColors() {
+        mColorsResolved = false;
+        mIconColorRamp.invalidate();
+    }
+
+    // the bars call this whenever they re-read getTextColorInt(), so getColorInt() is re-read at the same points;
+    // the ramp is only rebuilt when the colors actually changed.
+    public void refreshColors() {
+        mColorsResolved = false;
+    }
+
+    protected void validateConfiguration(Context context) {
+        Configuration config = context.getResources().getConfiguration();
+        if (mCachedConfiguration == null || !mCachedConfiguration.equals(config)) {
+            invalidateIconCache();
+            invalidateColors();
+            mCachedConfiguration = new Configuration(config);
+        }
+    }
+
+    protected void resolveColors() {
+        if (mColorsResolved) {
+            return;
+        }
+        {
+            Integer active = getColorInt(true), inactive = getColorInt(false);
+            mHasActiveColor = active != null;
+            mHasInactiveColor = inactive != null;
+            mActiveColor = mHasActiveColor ? active : 0;
+            mInactiveColor = mHasInactiveColor ? inactive : 0;
+        }
+        if (mHasActiveColor && mHasInactiveColor) {
+            mIconColorRamp.set(mInactiveColor, mActiveColor);
+        }
+        mColorsResolved = true;
+    }
+
+    protected CachedIcon getCachedIcon(Context context, boolean isChecked) {
+        CachedIcon ret = isChecked ? mActiveIcon : mInactiveIcon;
+        int drawableIdRes = getDrawableIdRes(isChecked);
+        if (ret.drawable == null || ret.drawableIdRes != drawableIdRes) {
+            Drawable base = mIconAtlas != null ? mIconAtlas.getDrawable(drawableIdRes) : null;
+            if (base == null) {
+                base = AppCompatResources.getDrawable(context, drawableIdRes);
+            }
+            Drawable d = DrawableCompat.wrap(base).mutate();
+            {
+                DrawableCompat.setTintMode(d, PorterDuff.Mode.SRC_IN);
+            }
+            ret.set(drawableIdRes, d);
+        }
+        return ret;
+    }
+
+    @Nullable
+    protected Drawable getSharedIcon(Context context, boolean isChecked, int pixelSize, @ColorInt int colorInt) {
+        SharedIcon ret = isChecked ? mActiveSharedIcon : mInactiveSharedIcon;
+        int drawableIdRes = getDrawableIdRes(isChecked);
+        if (!ret.matches(drawableIdRes, pixelSize, colorInt)) {
+            ret.set(drawableIdRes, pixelSize, colorInt, SharedIconCache.getInstance().get(context, drawableIdRes, pixelSize, colorInt));
+        }
+        return ret.drawable;
+    }
+
     @DrawableRes
     public abstract int getDrawableIdRes(boolean isChecked);
 
@@ -111,4 +254,97 @@ public abstract class AbsNavigationBarItem implements INavigationBarItem {
         return null;
     }
 
+    protected static class CachedIcon {
+
+        @DrawableRes
+        private int drawableIdRes;
+
+        @Nullable
+        private Drawable drawable;
+
+        private boolean tinted;
+
+        @ColorInt
+        private int tint;
+
+        protected void set(@DrawableRes int drawableIdRes, Drawable drawable) {
+            this.drawableIdRes = drawableIdRes;
+            this.drawable = drawable;
+            this.tinted = false;
+        }
+
+        protected void clear() {
+            this.drawable = null;
+            this.tinted = false;
+        }
+
+        protected void applyTint(boolean tinted, @ColorInt int colorInt) {
+            applyTint(tinted, colorInt, null);
+        }
+
+        // a list for colorInt, if given, is set as is instead of a new one per call.
+        protected void applyTint(boolean tinted, @ColorInt int colorInt, @Nullable ColorStateList list) {
+            if (drawable == null) {
+                return;
+            }
+            if (tinted) {
+                if (!this.tinted || tint != colorInt) {
+                    if (list != null) {
+                        DrawableCompat.setTintList(drawable, list);
+                    } else {
+                        DrawableCompat.setTint(drawable, colorInt);
+                    }
+                    this.tinted = true;
+                    tint = colorInt;
+                }
+            } else if (this.tinted) {
+                DrawableCompat.setTintList(drawable, null);
+                this.tinted = false;
+            }
+        }
+
+        @Nullable
+        public Drawable getDrawable() {
+            return drawable;
+        }
+
+    }
+
+    protected static class SharedIcon {
+
+        private boolean valid;
+
+        @DrawableRes
+        private int drawableIdRes;
+
+        private int pixelSize;
+
+        @ColorInt
+        private int tint;
+
+        @Nullable
+        private Drawable drawable;
+
+        protected boolean matches(@DrawableRes int drawableIdRes, int pixelSize, @ColorInt int colorInt) {
+            return valid
+                    && this.drawableIdRes == drawableIdRes
+                    && this.pixelSize == pixelSize
+                    && tint == colorInt;
+        }
+
+        protected void set(@DrawableRes int drawableIdRes, int pixelSize, @ColorInt int colorInt, @Nullable Drawable drawable) {
+            this.valid = true;
+            this.drawableIdRes = drawableIdRes;
+            this.pixelSize = pixelSize;
+            this.tint = colorInt;
+            this.drawable = drawable;
+        }
+
+        protected void clear() {
+            this.valid = false;
+            this.drawable = null;
+        }
+
+    }
+
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jp.s64.android.navigationbarview.item;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.Nullable;
+import android.support.v4.content.ContextCompat;
+import android.text.TextPaint;
+import android.text.TextUtils;
+
+import jp.s64.android.navigationbarview.R;
+
+public class BadgeDrawable extends Drawable {
+
+    private final Paint mBackgroundPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final TextPaint mTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF mRect = new RectF();
+
+    private final int mSize;
+    private final int mDotSize;
+    private final int mHorizontalPadding;
+    private final float mBaselineOffset;
+
+    @Nullable
+    private CharSequence mText = null;
+    private float mTextWidth = 0f;
+
+    public BadgeDrawable(Context context) {
+        final Resources res = context.getResources();
+        {
+            mSize = res.getDimensionPixelSize(R.dimen.item_badge_size);
+            mDotSize = res.getDimensionPixelSize(R.dimen.item_badge_dot_size);
+            mHorizontalPadding = res.getDimensionPixelSize(R.dimen.item_badge_horizontal_padding);
+        }
+        {
+            mBackgroundPaint.setColor(ContextCompat.getColor(context, R.color.item_badge_background_color));
+        }
+        {
+            mTextPaint.setColor(ContextCompat.getColor(context, R.color.item_badge_text_color));
+            mTextPaint.setTextSize(res.getDimension(R.dimen.item_badge_text_size));
+            mTextPaint.setTypeface(Typeface.DEFAULT_BOLD);
+            mTextPaint.setTextAlign(Paint.Align.CENTER);
+        }
+        {
+            Paint.FontMetrics metrics = mTextPaint.getFontMetrics();
+            mBaselineOffset = -(metrics.ascent + metrics.descent) / 2f;
+        }
+    }
+
+    public void setText(@Nullable CharSequence text) {
+        if (TextUtils.equals(mText, text)) {
+            return;
+        }
+        {
+            mText = text;
+            mTextWidth = text != null && text.length() > 0 ? mTextPaint.measureText(text, 0, text.length()) : 0f;
+        }
+        invalidateSelf();
+    }
+
+    @Nullable
+    public CharSequence getText() {
+        return mText;
+    }
+
+    public boolean isEmpty() {
+        return mText == null;
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        if (mText == null) {
+            return 0;
+        } else if (mText.length() == 0) {
+            return mDotSize;
+        }
+        return Math.max(mSize, (int) Math.ceil(mTextWidth) + mHorizontalPadding * 2);
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        if (mText == null) {
+            return 0;
+        } else if (mText.length() == 0) {
+            return mDotSize;
+        }
+        return mSize;
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if (mText == null) {
+            return;
+        }
+        final Rect bounds = getBounds();
+        {
+            mRect.set(bounds);
+            float radius = Math.min(mRect.width(), mRect.height()) / 2f;
+            canvas.drawRoundRect(mRect, radius, radius, mBackgroundPaint);
+        }
+        if (mText.length() > 0) {
+            canvas.drawText(mText, 0, mText.length(), bounds.exactCenterX(), bounds.exactCenterY() + mBaselineOffset, mTextPaint);
+        }
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mBackgroundPaint.setAlpha(alpha);
+        mTextPaint.setAlpha(alpha);
+        invalidateSelf();
+    }
+
+    @Override
+    public void setColorFilter(@Nullable ColorFilter colorFilter) {
+        mBackgroundPaint.setColorFilter(colorFilter);
+        mTextPaint.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+}
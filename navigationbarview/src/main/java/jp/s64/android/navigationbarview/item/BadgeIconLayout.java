@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jp.s64.android.navigationbarview.item;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.AppCompatImageView;
+import android.view.ViewParent;
+import android.widget.FrameLayout;
+
+// a FrameLayout, so the single icon child is measured once.
+public class BadgeIconLayout extends FrameLayout {
+
+    @Nullable
+    private BadgeDrawable mBadge = null;
+
+    @Nullable
+    private OnInvalidateListener mOnInvalidateListener = null;
+
+    public BadgeIconLayout(Context context) {
+        super(context);
+    }
+
+    // for hosts that draw this layout without attaching it, where invalidate() reaches nobody.
+    public void setOnInvalidateListener(@Nullable OnInvalidateListener listener) {
+        mOnInvalidateListener = listener;
+    }
+
+    public void setBadge(@Nullable BadgeDrawable badge) {
+        if (mBadge == badge) {
+            return;
+        }
+        if (mBadge != null) {
+            mBadge.setCallback(null);
+        }
+        {
+            mBadge = badge;
+        }
+        if (badge != null) {
+            badge.setCallback(this);
+        }
+        invalidateIcon();
+    }
+
+    @Nullable
+    public BadgeDrawable getBadge() {
+        return mBadge;
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        if (mBadge == null || mBadge.isEmpty()) {
+            return;
+        }
+        int width = mBadge.getIntrinsicWidth(), height = mBadge.getIntrinsicHeight();
+        int right = getWidth() + height / 3, top = -height / 4;
+        mBadge.setBounds(right - width, top, right, top + height);
+        mBadge.draw(canvas);
+    }
+
+    @Override
+    protected boolean verifyDrawable(@NonNull Drawable who) {
+        return who == mBadge || super.verifyDrawable(who);
+    }
+
+    @Override
+    public void invalidateDrawable(@NonNull Drawable drawable) {
+        if (drawable == mBadge) {
+            invalidateIcon();
+        } else {
+            super.invalidateDrawable(drawable);
+        }
+    }
+
+    @Override
+    public void requestLayout() {
+        super.requestLayout();
+        if (mOnInvalidateListener != null) {
+            mOnInvalidateListener.onIconInvalidated(this);
+        }
+    }
+
+    protected void invalidateIcon() {
+        invalidate();
+        if (mOnInvalidateListener != null) {
+            mOnInvalidateListener.onIconInvalidated(this);
+        }
+    }
+
+    public interface OnInvalidateListener {
+
+        void onIconInvalidated(BadgeIconLayout icon);
+
+    }
+
+    // the icon image; forwards drawable invalidation (e.g. a tint change) to the layout.
+    static class IconView extends AppCompatImageView {
+
+        IconView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void invalidateDrawable(@NonNull Drawable drawable) {
+            super.invalidateDrawable(drawable);
+            ViewParent parent = getParent();
+            if (parent instanceof BadgeIconLayout) {
+                ((BadgeIconLayout) parent).invalidateIcon();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jp.s64.android.navigationbarview.item;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.RequiresApi;
+import android.view.Choreographer;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+final class BadgeUpdateDispatcher {
+
+    private static final BadgeUpdateDispatcher INSTANCE = new BadgeUpdateDispatcher();
+
+    private final ConcurrentLinkedQueue<AbsBadgeNavigationBarItem> mQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean mScheduled = new AtomicBoolean(false);
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private final Runnable mPostFrame = new Runnable() {
+        @Override
+        public void run() {
+            postFrame();
+        }
+    };
+
+    private final Runnable mDrain = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    private Object mFrameCallback = null;
+
+    private BadgeUpdateDispatcher() {
+    }
+
+    static BadgeUpdateDispatcher getInstance() {
+        return INSTANCE;
+    }
+
+    void enqueue(AbsBadgeNavigationBarItem item) {
+        mQueue.offer(item);
+        if (!mScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            postFrame();
+        } else {
+            mHandler.post(mPostFrame);
+        }
+    }
+
+    private void postFrame() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (mFrameCallback == null) {
+                mFrameCallback = Api16.createFrameCallback(mDrain);
+            }
+            Api16.postFrameCallback(mFrameCallback);
+        } else {
+            mHandler.post(mDrain);
+        }
+    }
+
+    private void drain() {
+        mScheduled.set(false);
+        AbsBadgeNavigationBarItem item;
+        while ((item = mQueue.poll()) != null) {
+            item.applyPendingBadge();
+        }
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.JELLY_BEAN)
+    private static class Api16 {
+
+        static Object createFrameCallback(final Runnable runnable) {
+            return new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    runnable.run();
+                }
+            };
+        }
+
+        static void postFrameCallback(Object callback) {
+            Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) callback);
+        }
+
+    }
+
+}
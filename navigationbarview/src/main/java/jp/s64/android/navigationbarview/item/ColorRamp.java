@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jp.s64.android.navigationbarview.item;
+
+import android.content.res.ColorStateList;
+import android.support.annotation.ColorInt;
+
+import java.util.Arrays;
+
+public class ColorRamp {
+
+    public static final int DEFAULT_STEPS = 64;
+
+    private final int[] mTable;
+
+    // ColorStateList.valueOf() only keeps weak references, so a ramp frame could allocate one per step.
+    private final ColorStateList[] mLists;
+
+    @ColorInt
+    private int mInactiveColor;
+
+    @ColorInt
+    private int mActiveColor;
+
+    private boolean mValid = false;
+
+    public ColorRamp() {
+        this(DEFAULT_STEPS);
+    }
+
+    public ColorRamp(int steps) {
+        mTable = new int[Math.max(2, steps)];
+        mLists = new ColorStateList[mTable.length];
+    }
+
+    public boolean matches(@ColorInt int inactive, @ColorInt int active) {
+        return mValid && mInactiveColor == inactive && mActiveColor == active;
+    }
+
+    public ColorRamp set(@ColorInt int inactive, @ColorInt int active) {
+        if (matches(inactive, active)) {
+            return this;
+        }
+        {
+            mInactiveColor = inactive;
+            mActiveColor = active;
+        }
+        int last = mTable.length - 1;
+        for (int i = 0; i <= last; i++) {
+            mTable[i] = evaluate((float) i / last, inactive, active);
+        }
+        Arrays.fill(mLists, null);
+        mValid = true;
+        return this;
+    }
+
+    public void invalidate() {
+        mValid = false;
+    }
+
+    public boolean isValid() {
+        return mValid;
+    }
+
+    @ColorInt
+    public int get(float fraction) {
+        return mTable[indexOf(fraction)];
+    }
+
+    @ColorInt
+    public int get(float fraction, boolean toActive) {
+        return get(toActive ? fraction : 1f - fraction);
+    }
+
+    public ColorStateList getList(float fraction) {
+        int index = indexOf(fraction);
+        ColorStateList ret = mLists[index];
+        if (ret == null) {
+            ret = ColorStateList.valueOf(mTable[index]);
+            mLists[index] = ret;
+        }
+        return ret;
+    }
+
+    public ColorStateList getList(float fraction, boolean toActive) {
+        return getList(toActive ? fraction : 1f - fraction);
+    }
+
+    private int indexOf(float fraction) {
+        int last = mTable.length - 1;
+        if (fraction <= 0f) {
+            return 0;
+        } else if (fraction >= 1f) {
+            return last;
+        }
+        return (int) (fraction * last + 0.5f);
+    }
+
+    @ColorInt
+    public static int evaluate(float fraction, @ColorInt int startValue, @ColorInt int endValue) {
+        int startA = (startValue >> 24) & 0xff;
+        int startR = (startValue >> 16) & 0xff;
+        int startG = (startValue >> 8) & 0xff;
+        int startB = startValue & 0xff;
+
+        int endA = (endValue >> 24) & 0xff;
+        int endR = (endValue >> 16) & 0xff;
+        int endG = (endValue >> 8) & 0xff;
+        int endB = endValue & 0xff;
+
+        return ((startA + (int) (fraction * (endA - startA))) << 24)
+                | ((startR + (int) (fraction * (endR - startR))) << 16)
+                | ((startG + (int) (fraction * (endG - startG))) << 8)
+                | (startB + (int) (fraction * (endB - startB)));
+    }
+
+}
@@ -35,6 +35,7 @@ public interface INavigationBarItem {
 
     View updateIcon(@Nullable View original, Context context, int width, int height, IconAnimator animator);
 
+    // newView is this item's own view, or the whole bar for bars that draw items without views (CanvasBottomNavigationBarView).
     void onItemViewCreated(View newView);
 
     void onItemViewRemoved(View removedView);
@@ -42,16 +43,52 @@ public interface INavigationBarItem {
     @Nullable
     Integer getIconPixelSize();
 
+    // one instance is reused by each item view for every frame; only read it inside updateIcon().
     class IconAnimator {
 
-        public final boolean isChecked;
-        public final boolean oldIsChecked;
-        public final float fraction;
+        /**
+         * @deprecated kept readable for existing items; use {@link #isChecked()}. Written by the bar for every frame.
+         */
+        @Deprecated
+        public boolean isChecked;
+
+        /**
+         * @deprecated kept readable for existing items; use {@link #isOldChecked()}. Written by the bar for every frame.
+         */
+        @Deprecated
+        public boolean oldIsChecked;
+
+        /**
+         * @deprecated kept readable for existing items; use {@link #getFraction()}. Written by the bar for every frame.
+         */
+        @Deprecated
+        public float fraction;
 
         public IconAnimator(boolean isChecked, boolean oldIsChecked, float fraction) {
+            set(isChecked, oldIsChecked, fraction);
+        }
+
+        @SuppressWarnings("deprecation")
+        protected IconAnimator set(boolean isChecked, boolean oldIsChecked, float fraction) {
             this.isChecked = isChecked;
             this.oldIsChecked = oldIsChecked;
             this.fraction = fraction;
+            return this;
+        }
+
+        @SuppressWarnings("deprecation")
+        public boolean isChecked() {
+            return isChecked;
+        }
+
+        @SuppressWarnings("deprecation")
+        public boolean isOldChecked() {
+            return oldIsChecked;
+        }
+
+        @SuppressWarnings("deprecation")
+        public float getFraction() {
+            return fraction;
         }
 
     }
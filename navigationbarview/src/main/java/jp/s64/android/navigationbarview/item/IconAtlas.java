@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jp.s64.android.navigationbarview.item;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.Nullable;
+import android.support.v7.content.res.AppCompatResources;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+
+public class IconAtlas {
+
+    private static final int CELL_SPACING = 2;
+
+    private final Bitmap mBitmap;
+    private final SparseArray<Rect> mRegions;
+    private final SparseIntArray mSizes;
+
+    // rasterized for one configuration, like the keys of SharedIconCache.
+    private final int mDensityDpi;
+    private final int mUiMode;
+
+    public IconAtlas(Context context, SparseIntArray sizes) {
+        final int count = sizes.size();
+        {
+            mSizes = new SparseIntArray(count);
+            mRegions = new SparseArray<>(count);
+        }
+        {
+            Resources res = context.getResources();
+            mDensityDpi = res.getDisplayMetrics().densityDpi;
+            mUiMode = res.getConfiguration().uiMode;
+        }
+        int width = 0, height = 0;
+        for (int i = 0; i < count; i++) {
+            int size = sizes.valueAt(i);
+            mSizes.put(sizes.keyAt(i), size);
+            mRegions.put(sizes.keyAt(i), new Rect(width, 0, width + size, size));
+            width += size + CELL_SPACING;
+            height = Math.max(height, size);
+        }
+        mBitmap = Bitmap.createBitmap(Math.max(1, width), Math.max(1, height), Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(mBitmap);
+        for (int i = 0; i < count; i++) {
+            Drawable d = AppCompatResources.getDrawable(context, mRegions.keyAt(i));
+            if (d == null) {
+                continue;
+            }
+            d.setBounds(mRegions.valueAt(i));
+            d.draw(canvas);
+        }
+    }
+
+    public boolean matches(Context context, SparseIntArray sizes) {
+        final Resources res = context.getResources();
+        if (res.getDisplayMetrics().densityDpi != mDensityDpi || res.getConfiguration().uiMode != mUiMode) {
+            return false;
+        } else if (sizes.size() != mSizes.size()) {
+            return false;
+        }
+        for (int i = 0; i < sizes.size(); i++) {
+            if (mSizes.get(sizes.keyAt(i), -1) != sizes.valueAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean contains(@DrawableRes int drawableIdRes) {
+        return mRegions.get(drawableIdRes) != null;
+    }
+
+    @Nullable
+    public Drawable getDrawable(@DrawableRes int drawableIdRes) {
+        Rect region = mRegions.get(drawableIdRes);
+        return region != null ? new RegionDrawable(mBitmap, region) : null;
+    }
+
+    public Bitmap getBitmap() {
+        return mBitmap;
+    }
+
+    public static class RegionDrawable extends Drawable {
+
+        private final Bitmap mBitmap;
+        private final Rect mRegion;
+        private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG | Paint.ANTI_ALIAS_FLAG);
+
+        @Nullable
+        private ColorFilter mColorFilter = null;
+
+        @Nullable
+        private ColorStateList mTint = null;
+        private PorterDuff.Mode mTintMode = PorterDuff.Mode.SRC_IN;
+        private int mFilterColor;
+
+        public RegionDrawable(Bitmap bitmap, Rect region) {
+            mBitmap = bitmap;
+            mRegion = region;
+        }
+
+        @Override
+        public void draw(Canvas canvas) {
+            canvas.drawBitmap(mBitmap, mRegion, getBounds(), mPaint);
+        }
+
+        @Override
+        public int getIntrinsicWidth() {
+            return mRegion.width();
+        }
+
+        @Override
+        public int getIntrinsicHeight() {
+            return mRegion.height();
+        }
+
+        @Override
+        public void setAlpha(int alpha) {
+            mPaint.setAlpha(alpha);
+            invalidateSelf();
+        }
+
+        @Override
+        public void setColorFilter(@Nullable ColorFilter colorFilter) {
+            mColorFilter = colorFilter;
+            updateFilter(true);
+        }
+
+        @Override
+        public void setTintList(@Nullable ColorStateList tint) {
+            mTint = tint;
+            updateFilter(true);
+        }
+
+        @Override
+        public void setTintMode(@Nullable PorterDuff.Mode tintMode) {
+            mTintMode = tintMode != null ? tintMode : PorterDuff.Mode.SRC_IN;
+            updateFilter(true);
+        }
+
+        @Override
+        public boolean isStateful() {
+            return mTint != null && mTint.isStateful();
+        }
+
+        @Override
+        protected boolean onStateChange(int[] state) {
+            return updateFilter(false);
+        }
+
+        private boolean updateFilter(boolean force) {
+            ColorFilter filter;
+            if (mColorFilter != null) {
+                filter = mColorFilter;
+            } else if (mTint != null) {
+                int color = mTint.getColorForState(getState(), mTint.getDefaultColor());
+                if (!force && color == mFilterColor) {
+                    return false;
+                }
+                mFilterColor = color;
+                filter = new PorterDuffColorFilter(color, mTintMode);
+            } else {
+                filter = null;
+            }
+            mPaint.setColorFilter(filter);
+            invalidateSelf();
+            return true;
+        }
+
+        @Override
+        public int getOpacity() {
+            return PixelFormat.TRANSLUCENT;
+        }
+
+    }
+
+}
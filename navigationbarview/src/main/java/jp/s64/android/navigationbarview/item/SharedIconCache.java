@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jp.s64.android.navigationbarview.item;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+import android.graphics.drawable.Animatable;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.ColorInt;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
+import android.support.v7.content.res.AppCompatResources;
+import android.util.SparseBooleanArray;
+
+// rasterized icons shared by every bar in the process, keyed by resource, pixel size and tint.
+// only tinted icons are shared: the tint replaces whatever colors the drawable took from its context's theme,
+// which can't be part of the key.
+public final class SharedIconCache {
+
+    private static final int DEFAULT_MAX_BYTES = 1024 * 1024;
+
+    private static final SharedIconCache INSTANCE = new SharedIconCache();
+
+    private final Object mLock = new Object();
+
+    // stateful or animated drawables can't be rasterized once and shared.
+    private final SparseBooleanArray mUnshareable = new SparseBooleanArray();
+
+    private LruCache<Key, Bitmap> mCache = createCache(DEFAULT_MAX_BYTES);
+
+    private long mUnshareableCount = 0;
+
+    private SharedIconCache() {
+    }
+
+    public static SharedIconCache getInstance() {
+        return INSTANCE;
+    }
+
+    public void setMaxSize(int maxBytes) {
+        synchronized (mLock) {
+            if (mCache.maxSize() == maxBytes) {
+                return;
+            }
+            LruCache<Key, Bitmap> old = mCache;
+            {
+                mCache = createCache(maxBytes);
+            }
+            old.evictAll();
+        }
+    }
+
+    public int getMaxSize() {
+        synchronized (mLock) {
+            return mCache.maxSize();
+        }
+    }
+
+    public void evictAll() {
+        synchronized (mLock) {
+            mCache.evictAll();
+            mUnshareable.clear();
+        }
+    }
+
+    public void trimToSize(int maxBytes) {
+        synchronized (mLock) {
+            mCache.trimToSize(maxBytes);
+        }
+    }
+
+    public Stats getStats() {
+        synchronized (mLock) {
+            return new Stats(
+                    mCache.hitCount(),
+                    mCache.missCount(),
+                    mCache.evictionCount(),
+                    mUnshareableCount,
+                    mCache.size(),
+                    mCache.maxSize()
+            );
+        }
+    }
+
+    @Nullable
+    public Drawable get(Context context, @DrawableRes int drawableIdRes, int pixelSize, @ColorInt int tint) {
+        if (pixelSize <= 0) {
+            return null;
+        }
+        final Resources res = context.getResources();
+        final Key key = new Key(drawableIdRes, pixelSize, tint, res.getDisplayMetrics().densityDpi, res.getConfiguration().uiMode);
+        Bitmap bitmap;
+        synchronized (mLock) {
+            if (mUnshareable.get(drawableIdRes)) {
+                return null;
+            }
+            bitmap = mCache.get(key);
+        }
+        if (bitmap == null) {
+            Drawable source = AppCompatResources.getDrawable(context, drawableIdRes);
+            if (source == null) {
+                return null;
+            } else if (source.isStateful() || source instanceof Animatable) {
+                synchronized (mLock) {
+                    mUnshareable.put(drawableIdRes, true);
+                    mUnshareableCount++;
+                }
+                return null;
+            }
+            bitmap = rasterize(source.mutate(), pixelSize, tint);
+            synchronized (mLock) {
+                mCache.put(key, bitmap);
+            }
+        }
+        return new BitmapDrawable(res, bitmap);
+    }
+
+    private static Bitmap rasterize(Drawable source, int pixelSize, @ColorInt int tint) {
+        int width = pixelSize, height = pixelSize;
+        {
+            int intrinsicWidth = source.getIntrinsicWidth(), intrinsicHeight = source.getIntrinsicHeight();
+            if (intrinsicWidth > 0 && intrinsicHeight > 0) {
+                float scale = (float) pixelSize / Math.max(intrinsicWidth, intrinsicHeight);
+                width = Math.max(1, Math.round(intrinsicWidth * scale));
+                height = Math.max(1, Math.round(intrinsicHeight * scale));
+            }
+        }
+        Bitmap ret = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        {
+            source.setBounds(0, 0, width, height);
+            source.setColorFilter(new PorterDuffColorFilter(tint, PorterDuff.Mode.SRC_IN));
+            source.draw(new Canvas(ret));
+        }
+        return ret;
+    }
+
+    private static LruCache<Key, Bitmap> createCache(int maxBytes) {
+        return new LruCache<Key, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(Key key, Bitmap value) {
+                return value.getRowBytes() * value.getHeight();
+            }
+        };
+    }
+
+    public static class Stats {
+
+        public final long hitCount;
+        public final long missCount;
+        public final long evictionCount;
+        public final long unshareableCount;
+        public final int size;
+        public final int maxSize;
+
+        protected Stats(long hitCount, long missCount, long evictionCount, long unshareableCount, int size, int maxSize) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.unshareableCount = unshareableCount;
+            this.size = size;
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public String toString() {
+            return "SharedIconCache.Stats{hit=" + hitCount
+                    + ", miss=" + missCount
+                    + ", eviction=" + evictionCount
+                    + ", unshareable=" + unshareableCount
+                    + ", size=" + size + "/" + maxSize + "}";
+        }
+
+    }
+
+    private static class Key {
+
+        @DrawableRes
+        private final int drawableIdRes;
+        private final int pixelSize;
+
+        @ColorInt
+        private final int tint;
+
+        private final int densityDpi;
+        private final int uiMode;
+
+        private Key(@DrawableRes int drawableIdRes, int pixelSize, @ColorInt int tint, int densityDpi, int uiMode) {
+            this.drawableIdRes = drawableIdRes;
+            this.pixelSize = pixelSize;
+            this.tint = tint;
+            this.densityDpi = densityDpi;
+            this.uiMode = uiMode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            } else if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return drawableIdRes == other.drawableIdRes
+                    && pixelSize == other.pixelSize
+                    && tint == other.tint
+                    && densityDpi == other.densityDpi
+                    && uiMode == other.uiMode;
+        }
+
+        @Override
+        public int hashCode() {
+            int ret = drawableIdRes;
+            ret = 31 * ret + pixelSize;
+            ret = 31 * ret + tint;
+            ret = 31 * ret + densityDpi;
+            ret = 31 * ret + uiMode;
+            return ret;
+        }
+
+    }
+
+}
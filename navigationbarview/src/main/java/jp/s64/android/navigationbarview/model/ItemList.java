@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package jp.s64.android.navigationbarview.model;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+public class ItemList<T> {
+
+    private final LinkedHashSet<T> mItems = new LinkedHashSet<>();
+    private final Listener<T> mListener;
+
+    private int mMaxSize = Integer.MAX_VALUE;
+    private int mMinSize = 0;
+
+    private int mBatchDepth = 0;
+
+    private ImmutableList<T> mBatchOldItems = null;
+
+    public ItemList(Listener<T> listener) {
+        mListener = listener;
+    }
+
+    public void clearItems() {
+        beginBatch();
+        try {
+            mItems.clear();
+        } finally {
+            commit();
+        }
+    }
+
+    @SafeVarargs
+    public final void add(T... items) {
+        beginBatch();
+        try {
+            for (T item : items) {
+                mItems.add(item);
+            }
+        } finally {
+            commit();
+        }
+    }
+
+    @SafeVarargs
+    public final void remove(T... items) {
+        beginBatch();
+        try {
+            for (T item : items) {
+                mItems.remove(item);
+            }
+        } finally {
+            commit();
+        }
+    }
+
+    public void remove(int index) {
+        beginBatch();
+        try {
+            mItems.remove(get(index));
+        } finally {
+            commit();
+        }
+    }
+
+    public void replace(int index, T item) {
+        beginBatch();
+        try {
+            List<T> replaced = new ArrayList<>(mItems);
+            replaced.set(index, item);
+            mItems.clear();
+            mItems.addAll(replaced);
+        } finally {
+            commit();
+        }
+    }
+
+    public T get(int index) {
+        if (index < 0 || index >= mItems.size()) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + mItems.size());
+        }
+        Iterator<T> it = mItems.iterator();
+        for (int i = 0; i < index; i++) {
+            it.next();
+        }
+        return it.next();
+    }
+
+    public int indexOf(T item) {
+        int i = 0;
+        for (T each : mItems) {
+            if (each.equals(item)) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    public boolean contains(T item) {
+        return mItems.contains(item);
+    }
+
+    public ImmutableList<T> snapshot() {
+        return ImmutableList.copyOf(mItems);
+    }
+
+    public void beginBatch() {
+        if (mBatchDepth++ == 0) {
+            mBatchOldItems = ImmutableList.copyOf(mItems);
+        }
+    }
+
+    public void commit() {
+        if (mBatchDepth < 1) {
+            throw new IllegalStateException("commit() called without beginBatch()");
+        }
+        if (--mBatchDepth > 0) {
+            return;
+        }
+        ImmutableList<T> oldItems, newItems;
+        {
+            oldItems = mBatchOldItems;
+            mBatchOldItems = null;
+        }
+        {
+            newItems = ImmutableList.copyOf(mItems);
+        }
+        mListener.onItemsChanged(oldItems, newItems);
+    }
+
+    public boolean isInBatch() {
+        return mBatchDepth > 0;
+    }
+
+    public int size() {
+        return mItems.size();
+    }
+
+    public void setItemLimit(int min, int max) {
+        mMinSize = min;
+        mMaxSize = max;
+    }
+
+    public int getMaxSize() {
+        return mMaxSize;
+    }
+
+    public int getMinSize() {
+        return mMinSize;
+    }
+
+    public void assertLessThanMaxSize(int newSize) {
+        if (newSize <= getMaxSize()) {
+            return;
+        }
+        throw createOutOfLimitException(getMinSize(), getMaxSize());
+    }
+
+    public void assertMoreThanMinSize(int newSize) {
+        if (newSize >= getMinSize()) {
+            return;
+        }
+        throw createOutOfLimitException(getMinSize(), getMaxSize());
+    }
+
+    protected ItemsOutOfLimitException createOutOfLimitException(int min, int max) {
+        return new ItemsOutOfLimitException(min, max);
+    }
+
+    public interface Listener<T> {
+
+        void onItemsChanged(ImmutableList<T> oldItems, ImmutableList<T> newItems);
+
+    }
+
+}
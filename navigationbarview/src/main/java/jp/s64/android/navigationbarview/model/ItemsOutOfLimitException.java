@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package jp.s64.android.navigationbarview.model;
+
+import java.util.Locale;
+
+public class ItemsOutOfLimitException extends RuntimeException {
+
+    protected static final String FORMAT = "Number of items supported by BottomNavigationView is %d - %d.";
+
+    public ItemsOutOfLimitException(int min, int max) {
+        super(String.format(
+                Locale.ROOT,
+                FORMAT,
+                min,
+                max
+        ));
+    }
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jp.s64.android.navigationbarview.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public final class ListDiff<T> {
+
+    public static final int REMOVE = 0;
+    public static final int INSERT = 1;
+    public static final int MOVE = 2;
+    public static final int REBIND = 3;
+
+    private final List<Operation<T>> mOperations;
+
+    private ListDiff(List<Operation<T>> operations) {
+        mOperations = Collections.unmodifiableList(operations);
+    }
+
+    public List<Operation<T>> getOperations() {
+        return mOperations;
+    }
+
+    public boolean isEmpty() {
+        return mOperations.isEmpty();
+    }
+
+    public static <T> ListDiff<T> calculate(List<T> oldItems, List<T> newItems, IdFunction<? super T> ids) {
+        final int oldSize = oldItems.size(), newSize = newItems.size();
+        final List<Operation<T>> ops = new ArrayList<>();
+
+        final int[] oldIndexOfNew = new int[newSize];
+        final boolean[] matched = new boolean[oldSize];
+        {
+            // (id, index) pairs sorted by id, so the first old index of an id is found by binary search.
+            long[] oldIndices = new long[oldSize];
+            for (int i = 0; i < oldSize; i++) {
+                oldIndices[i] = ((long) ids.getId(oldItems.get(i)) << 32) | i;
+            }
+            Arrays.sort(oldIndices);
+            for (int i = 0; i < newSize; i++) {
+                int oldIndex = firstIndexOf(oldIndices, ids.getId(newItems.get(i)));
+                if (oldIndex >= 0 && !matched[oldIndex]) {
+                    matched[oldIndex] = true;
+                    oldIndexOfNew[i] = oldIndex;
+                } else {
+                    oldIndexOfNew[i] = -1;
+                }
+            }
+        }
+
+        // current[] simulates the container: every slot holds the new index of the item placed there.
+        final int[] current = new int[Math.max(oldSize, newSize)];
+        int currentSize = 0;
+        {
+            int[] newIndexOfOld = new int[oldSize];
+            for (int i = 0; i < oldSize; i++) {
+                newIndexOfOld[i] = -1;
+            }
+            for (int i = 0; i < newSize; i++) {
+                if (oldIndexOfNew[i] >= 0) {
+                    newIndexOfOld[oldIndexOfNew[i]] = i;
+                }
+            }
+            for (int i = oldSize - 1; i >= 0; i--) {
+                if (!matched[i]) {
+                    ops.add(new Operation<>(REMOVE, i, -1, null, oldItems.get(i)));
+                }
+            }
+            for (int i = 0; i < oldSize; i++) {
+                if (matched[i]) {
+                    current[currentSize++] = newIndexOfOld[i];
+                }
+            }
+        }
+
+        final boolean[] stays = longestIncreasingSubsequence(current, currentSize, newSize);
+
+        for (int i = 0; i < newSize; i++) {
+            if (stays[i]) {
+                continue;
+            }
+            int to;
+            if (oldIndexOfNew[i] >= 0) {
+                int from = indexOf(current, currentSize, i);
+                System.arraycopy(current, from + 1, current, from, currentSize - from - 1);
+                currentSize--;
+                to = i == 0 ? 0 : indexOf(current, currentSize, i - 1) + 1;
+                ops.add(new Operation<>(MOVE, from, to, newItems.get(i), oldItems.get(oldIndexOfNew[i])));
+            } else {
+                to = i == 0 ? 0 : indexOf(current, currentSize, i - 1) + 1;
+                ops.add(new Operation<>(INSERT, -1, to, newItems.get(i), null));
+            }
+            System.arraycopy(current, to, current, to + 1, currentSize - to);
+            current[to] = i;
+            currentSize++;
+        }
+
+        for (int i = 0; i < newSize; i++) {
+            if (oldIndexOfNew[i] < 0) {
+                continue;
+            }
+            T oldItem = oldItems.get(oldIndexOfNew[i]), newItem = newItems.get(i);
+            if (!oldItem.equals(newItem)) {
+                ops.add(new Operation<>(REBIND, i, i, newItem, oldItem));
+            }
+        }
+        return new ListDiff<>(ops);
+    }
+
+    private static int firstIndexOf(long[] sortedIndices, int id) {
+        int lo = 0, hi = sortedIndices.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if ((int) (sortedIndices[mid] >> 32) < id) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        if (lo < sortedIndices.length && (int) (sortedIndices[lo] >> 32) == id) {
+            return (int) sortedIndices[lo];
+        }
+        return -1;
+    }
+
+    private static int indexOf(int[] values, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean[] longestIncreasingSubsequence(int[] values, int size, int range) {
+        final boolean[] ret = new boolean[range];
+        if (size == 0) {
+            return ret;
+        }
+        final int[] tails = new int[size];
+        final int[] prev = new int[size];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            int lo = 0, hi = length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[tails[mid]] < values[i]) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            prev[i] = lo > 0 ? tails[lo - 1] : -1;
+            tails[lo] = i;
+            if (lo == length) {
+                length++;
+            }
+        }
+        for (int i = tails[length - 1]; i >= 0; i = prev[i]) {
+            ret[values[i]] = true;
+        }
+        return ret;
+    }
+
+    public interface IdFunction<T> {
+
+        int getId(T item);
+
+    }
+
+    public static class Operation<T> {
+
+        public final int type;
+        public final int fromIndex;
+        public final int toIndex;
+
+        // null for REMOVE.
+        public final T item;
+
+        // null for INSERT.
+        public final T oldItem;
+
+        public Operation(int type, int fromIndex, int toIndex, T item, T oldItem) {
+            this.type = type;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+            this.item = item;
+            this.oldItem = oldItem;
+        }
+
+    }
+
+}
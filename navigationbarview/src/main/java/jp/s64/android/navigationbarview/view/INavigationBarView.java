@@ -34,6 +34,10 @@ public interface INavigationBarView extends INavigationBarTransitionView {
 
     void replace(int index, INavigationBarItem item);
 
+    void beginBatch();
+
+    void commit();
+
     int size();
 
     void setItemLimit(@Nullable Integer min, @Nullable Integer max);
@@ -46,6 +50,8 @@ public interface INavigationBarView extends INavigationBarTransitionView {
 
     void uncheck();
 
+    // null for an unknown id, and always null for bars that draw their items without views
+    // (CanvasBottomNavigationBarView); use its getItemBounds() and accessibility nodes instead.
     @Nullable
     View getItemView(@IdRes int idRes);
 
@@ -60,6 +66,9 @@ public interface INavigationBarView extends INavigationBarTransitionView {
     @IdRes
     int getChecked();
 
+    // pass null to stop reporting; nothing is timed while no listener is set.
+    void setPerformanceListener(@Nullable PerformanceListener listener);
+
     interface OnCheckChangeListener {
 
         void onCheckChanged(@IdRes int oldIdRes, @IdRes int newIdRes);
@@ -72,4 +81,66 @@ public interface INavigationBarView extends INavigationBarTransitionView {
 
     }
 
+    interface PerformanceListener {
+
+        int ANIMATION_CHECK = 0;
+        int ANIMATION_WIDTH = 1;
+        int ANIMATION_SHOW = 2;
+        int ANIMATION_HIDE = 3;
+
+        void onItemViewCreated(View navigationBar, @IdRes int idRes, long durationNanos);
+
+        void onItemViewRebound(View navigationBar, @IdRes int idRes, long durationNanos);
+
+        void onItemsChanged(View navigationBar, int oldSize, int newSize, long durationNanos);
+
+        void onItemLayoutRequested(View navigationBar, View itemView);
+
+        void onAnimationStarted(View navigationBar, int animation);
+
+        void onAnimationCanceled(View navigationBar, int animation);
+
+        void onAnimationFrame(View navigationBar, int animation, long durationNanos);
+
+    }
+
+    class PerformanceListenerAdapter implements PerformanceListener {
+
+        @Override
+        public void onItemViewCreated(View navigationBar, @IdRes int idRes, long durationNanos) {
+            // no-op
+        }
+
+        @Override
+        public void onItemViewRebound(View navigationBar, @IdRes int idRes, long durationNanos) {
+            // no-op
+        }
+
+        @Override
+        public void onItemsChanged(View navigationBar, int oldSize, int newSize, long durationNanos) {
+            // no-op
+        }
+
+        @Override
+        public void onItemLayoutRequested(View navigationBar, View itemView) {
+            // no-op
+        }
+
+        @Override
+        public void onAnimationStarted(View navigationBar, int animation) {
+            // no-op
+        }
+
+        @Override
+        public void onAnimationCanceled(View navigationBar, int animation) {
+            // no-op
+        }
+
+        @Override
+        public void onAnimationFrame(View navigationBar, int animation, long durationNanos) {
+            // no-op
+        }
+
+    }
+
 }
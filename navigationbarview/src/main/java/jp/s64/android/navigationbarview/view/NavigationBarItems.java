@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package jp.s64.android.navigationbarview.view;
+
+import com.google.common.collect.ImmutableList;
+
+import jp.s64.android.navigationbarview.item.INavigationBarItem;
+import jp.s64.android.navigationbarview.model.ItemList;
+import jp.s64.android.navigationbarview.model.ItemsOutOfLimitException;
+import jp.s64.android.navigationbarview.model.ListDiff;
+
+public class NavigationBarItems extends ItemList<INavigationBarItem> {
+
+    public static final ListDiff.IdFunction<INavigationBarItem> ID_FUNCTION = new ListDiff.IdFunction<INavigationBarItem>() {
+        @Override
+        public int getId(INavigationBarItem item) {
+            return item.getIdRes();
+        }
+    };
+
+    public NavigationBarItems(Listener listener) {
+        super(listener);
+    }
+
+    public static ListDiff<INavigationBarItem> diff(ImmutableList<INavigationBarItem> oldItems, ImmutableList<INavigationBarItem> newItems) {
+        return ListDiff.calculate(oldItems, newItems, ID_FUNCTION);
+    }
+
+    @Override
+    protected ItemsOutOfLimitException createOutOfLimitException(int min, int max) {
+        return new NavigationBarViewHelper.ItemsOutOfLimitException(min, max);
+    }
+
+    public interface Listener extends ItemList.Listener<INavigationBarItem> {
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package jp.s64.android.navigationbarview.view;
+
+import android.support.v4.os.TraceCompat;
+
+public final class NavigationBarTrace {
+
+    public static final String ITEMS_CHANGED = "NavigationBar#onItemsChanged";
+    public static final String CREATE_ITEM_VIEW = "NavigationBar#createItemView";
+    public static final String ITEM_WIDTHS = "NavigationBar#updateItemWidths";
+    public static final String RESET_LAYOUT = "NavigationBarItem#resetLayout";
+    public static final String UPDATE_ICON = "NavigationBarItem#updateIcon";
+    public static final String SHOW_FRAME = "NavigationBar#showFrame";
+    public static final String HIDE_FRAME = "NavigationBar#hideFrame";
+
+    // read without synchronization; a stale value only drops or adds a section, begin/end stay paired.
+    private static boolean sEnabled = false;
+
+    private NavigationBarTrace() {
+    }
+
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    public static boolean beginSection(String sectionName) {
+        if (!sEnabled) {
+            return false;
+        }
+        TraceCompat.beginSection(sectionName);
+        return true;
+    }
+
+    public static void endSection(boolean begun) {
+        if (begun) {
+            TraceCompat.endSection();
+        }
+    }
+
+}
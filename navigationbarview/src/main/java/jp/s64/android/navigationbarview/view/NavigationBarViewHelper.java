@@ -19,28 +19,33 @@ package jp.s64.android.navigationbarview.view;
 import android.animation.TimeInterpolator;
 import android.support.annotation.IdRes;
 import android.support.annotation.Nullable;
+import android.util.SparseArray;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Checkable;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
-
-import java.util.ArrayList;
-import java.util.LinkedHashSet;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Locale;
 
 import jp.s64.android.navigationbarview.R;
 import jp.s64.android.navigationbarview.item.INavigationBarItem;
+import jp.s64.android.navigationbarview.model.ListDiff;
 import jp.s64.android.radiobuttonextended.core.widget.CompoundFrameLayoutRadioGroup;
 
 public class NavigationBarViewHelper<SELF extends View & INavigationBarView & NavigationBarViewHelper.IListener<ITEM>, ITEM extends View & Checkable & INavigationBarItemView> implements INavigationBarView {
 
-    private final LinkedHashSet<INavigationBarItem> mItems = new LinkedHashSet<>();
     private final SELF self;
 
+    private final NavigationBarItems mItems = new NavigationBarItems(new NavigationBarItems.Listener() {
+        @Override
+        public void onItemsChanged(ImmutableList<INavigationBarItem> oldItems, ImmutableList<INavigationBarItem> newItems) {
+            self.onItemsChanged(oldItems, newItems);
+        }
+    });
+
+    private final RecycledItemViewPool<ITEM> mRecycledViewPool = new RecycledItemViewPool<>();
+
+    private final SparseArray<ITEM> mItemViews = new SparseArray<>();
+
     private final View.OnLayoutChangeListener mLayoutChangeListener = new View.OnLayoutChangeListener() {
         @Override
         public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft, int oldTop, int oldRight, int oldBottom) {
@@ -51,18 +56,15 @@ public class NavigationBarViewHelper<SELF extends View & INavigationBarView & Na
         }
     };
 
-    @Nullable
-    private Integer mDefinedMaxSize = null;
-
-    @Nullable
-    private Integer mDefinedMinSize = null;
-
     @Nullable
     private OnCheckChangeListener mListener = null;
 
     @Nullable
     private Integer mOldCheckedId = null;
 
+    @Nullable
+    private PerformanceListener mPerformanceListener = null;
+
     public NavigationBarViewHelper(SELF self) {
         {
             this.self = self;
@@ -73,64 +75,41 @@ public class NavigationBarViewHelper<SELF extends View & INavigationBarView & Na
 
     @Override
     public void clearItems() {
-        ImmutableList<INavigationBarItem> oldItems = ImmutableList.copyOf(mItems),
-                newItems = ImmutableList.of();
-        {
-            mItems.clear();
-        }
-        self.onItemsChanged(oldItems, newItems);
+        mItems.clearItems();
     }
 
     @Override
     public void add(INavigationBarItem... items) {
-        ImmutableList<INavigationBarItem> oldItems, newItems;
-        {
-            oldItems = ImmutableList.copyOf(mItems);
-        }
-        for (INavigationBarItem item : items) {
-            mItems.add(item);
-        }
-        {
-            newItems = ImmutableList.copyOf(mItems);
-        }
-        self.onItemsChanged(oldItems, newItems);
+        mItems.add(items);
     }
 
     @Override
     public void remove(INavigationBarItem... items) {
-        ImmutableList<INavigationBarItem> oldItems, newItems;
-        {
-            oldItems = ImmutableList.copyOf(mItems);
-        }
-        for (INavigationBarItem item : items) {
-            mItems.remove(item);
-        }
-        {
-            newItems = ImmutableList.copyOf(mItems);
-        }
-        self.onItemsChanged(oldItems, newItems);
+        mItems.remove(items);
     }
 
     @Override
     public void remove(int index) {
-        remove(Lists.newArrayList(mItems).get(index));
+        mItems.remove(index);
     }
 
     @Override
     public void replace(int index, INavigationBarItem item) {
-        ImmutableList<INavigationBarItem> oldItems;
-        List<INavigationBarItem> newItems;
-        {
-            oldItems = ImmutableList.copyOf(mItems);
-        }
-        {
-            newItems = new ArrayList<>(oldItems);
-            newItems.remove(index);
-            newItems.add(index, item);
-        }
-        {
-            self.onItemsChanged(oldItems, ImmutableList.copyOf(newItems));
-        }
+        mItems.replace(index, item);
+    }
+
+    @Override
+    public void beginBatch() {
+        mItems.beginBatch();
+    }
+
+    @Override
+    public void commit() {
+        mItems.commit();
+    }
+
+    public boolean isInBatch() {
+        return mItems.isInBatch();
     }
 
     @Override
@@ -138,20 +117,26 @@ public class NavigationBarViewHelper<SELF extends View & INavigationBarView & Na
         return mItems.size();
     }
 
+    public ImmutableList<INavigationBarItem> snapshot() {
+        return mItems.snapshot();
+    }
+
     @Override
     public void setItemLimit(@Nullable Integer min, @Nullable Integer max) {
-        mDefinedMaxSize = max != null ? max : self.getResources().getInteger(R.integer.default_max_items);
-        mDefinedMinSize = min != null ? min : self.getResources().getInteger(R.integer.default_min_items);
+        mItems.setItemLimit(
+                min != null ? min : self.getResources().getInteger(R.integer.default_min_items),
+                max != null ? max : self.getResources().getInteger(R.integer.default_max_items)
+        );
     }
 
     @Override
     public int getMaxSize() {
-        return mDefinedMaxSize != null ? mDefinedMaxSize : Integer.MAX_VALUE;
+        return mItems.getMaxSize();
     }
 
     @Override
     public int getMinSize() {
-        return mDefinedMinSize != null ? mDefinedMinSize : 0;
+        return mItems.getMinSize();
     }
 
     @Deprecated
@@ -166,11 +151,10 @@ public class NavigationBarViewHelper<SELF extends View & INavigationBarView & Na
         throw new UnsupportedOperationException();
     }
 
-    @Deprecated
     @Nullable
     @Override
-    public View getItemView(@IdRes int idRes) {
-        throw new UnsupportedOperationException();
+    public ITEM getItemView(@IdRes int idRes) {
+        return mItemViews.get(idRes);
     }
 
     @Override
@@ -203,54 +187,100 @@ public class NavigationBarViewHelper<SELF extends View & INavigationBarView & Na
     }
 
     public void onItemsChanged(CompoundFrameLayoutRadioGroup container, ImmutableList<INavigationBarItem> oldItems, ImmutableList<INavigationBarItem> newItems) {
-        assertLessThanMaxSize(newItems.size());
-        //assertMoreThanMinSize(newItems.size());
-
-        final int max;
-        {
-            int nc = newItems.size(), oc = oldItems.size();
-            max = nc > oc ? nc : oc;
+        final boolean trace = NavigationBarTrace.beginSection(NavigationBarTrace.ITEMS_CHANGED);
+        try {
+            assertLessThanMaxSize(newItems.size());
+            //assertMoreThanMinSize(newItems.size());
+
+            final ListDiff<INavigationBarItem> diff = NavigationBarItems.diff(oldItems, newItems);
+            for (ListDiff.Operation<INavigationBarItem> op : diff.getOperations()) {
+                switch (op.type) {
+                    case ListDiff.REMOVE: {
+                        View removedView = container.getChildAt(op.fromIndex);
+                        unregisterItemView(op.oldItem.getIdRes(), removedView);
+                        container.removeViewAt(op.fromIndex);
+                        op.oldItem.onItemViewRemoved(removedView);
+                        recycleItemView(removedView);
+                        break;
+                    }
+                    case ListDiff.INSERT: {
+                        ITEM newView = obtainItemView(op.item, container.getCheckedRadioButtonId() == op.item.getIdRes());
+                        mItemViews.put(op.item.getIdRes(), newView);
+                        container.addView(newView, op.toIndex);
+                        op.item.onItemViewCreated(newView);
+                        break;
+                    }
+                    case ListDiff.MOVE: {
+                        View movedView = container.getChildAt(op.fromIndex);
+                        container.removeViewAt(op.fromIndex);
+                        container.addView(movedView, op.toIndex);
+                        break;
+                    }
+                    case ListDiff.REBIND: {
+                        @SuppressWarnings("unchecked")
+                        ITEM reboundView = (ITEM) container.getChildAt(op.toIndex);
+                        op.oldItem.onItemViewRemoved(reboundView);
+                        unregisterItemView(op.oldItem.getIdRes(), reboundView);
+                        mItemViews.put(op.item.getIdRes(), reboundView);
+                        final PerformanceListener listener = mPerformanceListener;
+                        final long start = listener != null ? System.nanoTime() : 0;
+                        self.bindItemView(reboundView, op.item, container.getCheckedRadioButtonId() == op.item.getIdRes());
+                        if (listener != null) {
+                            listener.onItemViewRebound(self, op.item.getIdRes(), System.nanoTime() - start);
+                        }
+                        op.item.onItemViewCreated(reboundView);
+                        break;
+                    }
+                }
+            }
+        } finally {
+            NavigationBarTrace.endSection(trace);
         }
+    }
 
-        final List<View> pendingRemoveViews = new LinkedList<>();
+    private void unregisterItemView(@IdRes int idRes, View view) {
+        if (mItemViews.get(idRes) == view) {
+            mItemViews.remove(idRes);
+        }
+    }
 
-        for (int i = 0; i < max; i++) {
-            INavigationBarItem newItem;
-            {
-                newItem = newItems.size() > i ? newItems.get(i) : null;
+    protected ITEM obtainItemView(INavigationBarItem item, boolean isChecked) {
+        final PerformanceListener listener = mPerformanceListener;
+        final long start = listener != null ? System.nanoTime() : 0;
+        ITEM ret = mRecycledViewPool.acquire();
+        if (ret != null) {
+            self.bindItemView(ret, item, isChecked);
+            if (listener != null) {
+                listener.onItemViewRebound(self, item.getIdRes(), System.nanoTime() - start);
             }
-            if (newItem == null) {
-                pendingRemoveViews.add(container.getChildAt(i));
-            } else if (oldItems.indexOf(newItem) != i) {
-                View newView = self.createItemView(newItem, container.getCheckedRadioButtonId() == newItem.getIdRes()),
-                        placedView = container.getChildAt(i);
-                {
-                    container.addView(newView, i);
-                    newItem.onItemViewCreated(newView);
-                }
-                if (placedView != null) {
-                    container.removeView(placedView);
-                    newItem.onItemViewRemoved(placedView);
-                }
+        } else {
+            ret = self.createItemView(item, isChecked);
+            if (listener != null) {
+                listener.onItemViewCreated(self, item.getIdRes(), System.nanoTime() - start);
             }
         }
-        for (View pendingRemoveView : pendingRemoveViews) {
-            container.removeView(pendingRemoveView);
+        return ret;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected void recycleItemView(View removedView) {
+        ITEM view = (ITEM) removedView;
+        {
+            self.recycleItemView(view);
         }
+        mRecycledViewPool.release(view);
+    }
+
+    public RecycledItemViewPool<ITEM> getRecycledViewPool() {
+        return mRecycledViewPool;
     }
 
     protected void assertLessThanMaxSize(int newSize) {
-        if (newSize <= getMaxSize()) {
-            return;
-        }
-        throw new ItemsOutOfLimitException(getMinSize(), getMaxSize());
+        mItems.assertLessThanMaxSize(newSize);
     }
 
     protected void assertMoreThanMinSize(int newSize) {
-        if (newSize >= getMinSize()) {
-            return;
-        }
-        throw new ItemsOutOfLimitException(getMinSize(), getMaxSize());
+        mItems.assertMoreThanMinSize(newSize);
     }
 
     @Deprecated
@@ -265,6 +295,16 @@ public class NavigationBarViewHelper<SELF extends View & INavigationBarView & Na
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public void setPerformanceListener(@Nullable PerformanceListener listener) {
+        mPerformanceListener = listener;
+    }
+
+    @Nullable
+    public PerformanceListener getPerformanceListener() {
+        return mPerformanceListener;
+    }
+
     public void onCheckChanged(@IdRes int checkedId) {
         if (mListener != null) {
             mListener.onCheckChanged(
@@ -275,17 +315,10 @@ public class NavigationBarViewHelper<SELF extends View & INavigationBarView & Na
         mOldCheckedId = checkedId;
     }
 
-    public static class ItemsOutOfLimitException extends RuntimeException {
-
-        protected static final String FORMAT = "Number of items supported by BottomNavigationView is %d - %d.";
+    public static class ItemsOutOfLimitException extends jp.s64.android.navigationbarview.model.ItemsOutOfLimitException {
 
         public ItemsOutOfLimitException(int min, int max) {
-            super(String.format(
-                    Locale.ROOT,
-                    FORMAT,
-                    min,
-                    max
-            ));
+            super(min, max);
         }
 
     }
@@ -296,6 +329,10 @@ public class NavigationBarViewHelper<SELF extends View & INavigationBarView & Na
 
         ITEM createItemView(INavigationBarItem item, boolean isChecked);
 
+        void bindItemView(ITEM view, INavigationBarItem item, boolean isChecked);
+
+        void recycleItemView(ITEM view);
+
     }
 
 }
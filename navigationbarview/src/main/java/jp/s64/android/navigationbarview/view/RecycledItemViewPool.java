@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2017 Shuma Yoshioka
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jp.s64.android.navigationbarview.view;
+
+import android.support.annotation.Nullable;
+import android.view.View;
+
+import java.util.ArrayList;
+
+public class RecycledItemViewPool<ITEM extends View> {
+
+    public static final int DEFAULT_MAX_SIZE = 5;
+
+    private final ArrayList<ITEM> mScrap = new ArrayList<>();
+
+    private int mMaxSize = DEFAULT_MAX_SIZE;
+
+    private int mHitCount = 0;
+    private int mMissCount = 0;
+
+    @Nullable
+    public ITEM acquire() {
+        if (mScrap.isEmpty()) {
+            mMissCount++;
+            return null;
+        }
+        mHitCount++;
+        return mScrap.remove(mScrap.size() - 1);
+    }
+
+    public boolean release(ITEM view) {
+        if (mScrap.size() >= mMaxSize || mScrap.contains(view)) {
+            return false;
+        }
+        mScrap.add(view);
+        return true;
+    }
+
+    public void setMaxSize(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize < 0");
+        }
+        {
+            mMaxSize = maxSize;
+        }
+        while (mScrap.size() > mMaxSize) {
+            mScrap.remove(mScrap.size() - 1);
+        }
+    }
+
+    public int getMaxSize() {
+        return mMaxSize;
+    }
+
+    public int size() {
+        return mScrap.size();
+    }
+
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    public void resetCounters() {
+        mHitCount = 0;
+        mMissCount = 0;
+    }
+
+    public void clear() {
+        mScrap.clear();
+    }
+
+}
@@ -0,0 +1,88 @@
+package jp.s64.android.navigationbarview;
+
+import com.google.monitoring.runtime.instrumentation.AllocationRecorder;
+import com.google.monitoring.runtime.instrumentation.Sampler;
+
+/**
+ * Sums the bytes the library allocates on the counting thread, as reported by the allocation
+ * instrumenter agent. Allocations made inside Robolectric's shadows on the way down from library code
+ * are left out: they stand in for framework code that does not allocate on a device.
+ */
+public final class AllocationCounter implements Sampler {
+
+    private static final String LIBRARY_PACKAGE = "jp.s64.android.navigationbarview.";
+    private static final String ROBOLECTRIC_PACKAGE = "org.robolectric.";
+
+    private volatile Thread mThread = null;
+    private boolean mSampling = false;
+    private boolean mSampled = false;
+    private long mBytes = 0;
+
+    private AllocationCounter() {
+        // use create()
+    }
+
+    /**
+     * @return null unless the tests run with -javaagent:java-allocation-instrumenter.jar.
+     */
+    public static AllocationCounter create() {
+        AllocationCounter ret = new AllocationCounter();
+        AllocationRecorder.addSampler(ret);
+        ret.setCounting(true);
+        Object probe = new Object[1];
+        ret.setCounting(false);
+        if (!ret.mSampled || probe == null) {
+            AllocationRecorder.removeSampler(ret);
+            return null;
+        }
+        ret.mBytes = 0;
+        return ret;
+    }
+
+    public void release() {
+        setCounting(false);
+        AllocationRecorder.removeSampler(this);
+    }
+
+    public void setCounting(boolean counting) {
+        mThread = counting ? Thread.currentThread() : null;
+    }
+
+    public long allocatedBytes() {
+        return mBytes;
+    }
+
+    @Override
+    public void sampleAllocation(int count, String desc, Object newObj, long size) {
+        if (mThread != Thread.currentThread() || mSampling) {
+            return;
+        }
+        mSampling = true;
+        mSampled = true;
+        try {
+            if (isLibraryAllocation(new Throwable().getStackTrace())) {
+                mBytes += size;
+            }
+        } finally {
+            mSampling = false;
+        }
+    }
+
+    // the innermost library frame below the sampler has to be reached before any Robolectric frame.
+    private static boolean isLibraryAllocation(StackTraceElement[] stack) {
+        for (StackTraceElement element : stack) {
+            String className = element.getClassName();
+            if (className.equals(AllocationCounter.class.getName())) {
+                continue;
+            }
+            if (className.startsWith(ROBOLECTRIC_PACKAGE)) {
+                return false;
+            }
+            if (className.startsWith(LIBRARY_PACKAGE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,28 @@
+package jp.s64.android.navigationbarview;
+
+import android.content.Context;
+import android.view.accessibility.AccessibilityManager;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.shadows.ShadowAccessibilityManager;
+
+/**
+ * Returns one AccessibilityManager for the whole run. Robolectric's own shadow builds a new manager and service
+ * for every getInstance(), i.e. on every view property change, which drowns per-frame allocation counts.
+ * Registered for all tests in robolectric.properties, so every test class shares one sandbox.
+ */
+@Implements(AccessibilityManager.class)
+public class ShadowSingleAccessibilityManager extends ShadowAccessibilityManager {
+
+    private static AccessibilityManager sInstance;
+
+    @Implementation
+    public static AccessibilityManager getInstance(Context context) throws Exception {
+        if (sInstance == null) {
+            sInstance = ShadowAccessibilityManager.getInstance(context);
+        }
+        return sInstance;
+    }
+
+}
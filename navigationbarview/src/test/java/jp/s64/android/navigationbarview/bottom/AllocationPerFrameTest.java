@@ -0,0 +1,373 @@
+package jp.s64.android.navigationbarview.bottom;
+
+import android.animation.ValueAnimator;
+import android.app.Activity;
+import android.content.Context;
+import android.support.annotation.IdRes;
+import android.support.v4.view.ViewCompat;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.util.Scheduler;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import jp.s64.android.navigationbarview.AllocationCounter;
+import jp.s64.android.navigationbarview.BuildConfig;
+import jp.s64.android.navigationbarview.R;
+import jp.s64.android.navigationbarview.item.AbsBadgeNavigationBarItem;
+import jp.s64.android.navigationbarview.item.INavigationBarItem;
+import jp.s64.android.navigationbarview.view.INavigationBarView;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeNotNull;
+
+/**
+ * Steps check and show/hide animations frame by frame on a paused main looper and fails when the
+ * bar's animation callbacks allocate more than the budget (bytes per frame).
+ * <p>
+ * The animation handler runs every started animator in start order within one frame task, so a probe
+ * animator started before the bar's animators and one moved behind them bracket only the bar's callbacks,
+ * leaving out Robolectric's message queue. Allocations are recorded by the allocation instrumenter agent
+ * (see build.gradle); the test is skipped without it. The budget comes from the
+ * "navigationbarview.allocationBudget" system property.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class AllocationPerFrameTest {
+
+    private static final long FRAME_MILLIS = 16;
+    private static final long CHECK_MILLIS = 200;
+    private static final long HIDE_MILLIS = 450;
+    private static final long SHOW_MILLIS = 500;
+    private static final int MAX_FRAMES = 1000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 3;
+
+    private static final int[] IDS = {1, 2, 3, 4};
+
+    private static final INavigationBarView.OnVisibilityAnimateListener NO_OP = new INavigationBarView.OnVisibilityAnimateListener() {
+        @Override
+        public <SELF extends View & INavigationBarView> void onVisibilityAnimate(SELF self) {
+            // no-op
+        }
+    };
+
+    private AllocationCounter mCounter;
+    private Probes mProbes;
+    private BottomNavigationBarView mBar;
+    private long mBudget;
+
+    @Before
+    public void setUp() throws Exception {
+        mCounter = AllocationCounter.create();
+        assumeNotNull(mCounter);
+        mProbes = new Probes(mCounter);
+        mBudget = Long.parseLong(System.getProperty("navigationbarview.allocationBudget", "0"));
+
+        ActivityController<Activity> controller = Robolectric.buildActivity(Activity.class).create();
+        Activity activity = controller.get();
+        activity.setTheme(R.style.Theme_AppCompat_Light);
+        {
+            mBar = new AnimatingBar(activity);
+            for (int id : IDS) {
+                mBar.add(new Item(id));
+            }
+        }
+        FrameLayout root = new FrameLayout(activity);
+        root.addView(mBar, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.BOTTOM));
+        activity.setContentView(root);
+        controller.start().resume().visible();
+        ShadowLooper.idleMainLooper();
+
+        ShadowLooper.pauseMainLooper();
+        ShadowChoreographer.setFrameInterval(TimeUnit.MILLISECONDS.toNanos(FRAME_MILLIS));
+        mBar.check(IDS[0]);
+        untilIdle();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (mCounter != null) {
+            mCounter.release();
+        }
+    }
+
+    @Test
+    public void checkDoesNotAllocatePerFrame() throws Exception {
+        {
+            TextView label = findLabel(IDS[1]);
+            float from = label.getScaleX();
+            mBar.check(IDS[1]);
+            frames(2);
+            float mid = label.getScaleX();
+            untilIdle();
+            assertStrictlyBetween("label scale", mid, from, label.getScaleX());
+            mBar.check(IDS[0]);
+            untilIdle();
+        }
+        for (int i = 0; i < WARMUP_ROUNDS + MEASURED_ROUNDS; i++) {
+            mProbes.setRecording(i >= WARMUP_ROUNDS);
+            mProbes.begin();
+            mBar.check(IDS[1]);
+            measure(CHECK_MILLIS);
+            mProbes.begin();
+            mBar.check(IDS[0]);
+            measure(CHECK_MILLIS);
+        }
+        assertWithinBudget("check");
+    }
+
+    @Test
+    public void showHideDoesNotAllocatePerFrame() throws Exception {
+        {
+            mBar.hide(NO_OP);
+            frames(4);
+            assertStrictlyBetween("translationY", mBar.getTranslationY(), 0f, mBar.getHeight());
+            untilIdle();
+            mBar.show(NO_OP);
+            untilIdle();
+        }
+        for (int i = 0; i < WARMUP_ROUNDS + MEASURED_ROUNDS; i++) {
+            mProbes.setRecording(i >= WARMUP_ROUNDS);
+            mProbes.begin();
+            mBar.hide(NO_OP);
+            measure(HIDE_MILLIS);
+            mProbes.begin();
+            mBar.show(NO_OP);
+            measure(SHOW_MILLIS);
+        }
+        assertWithinBudget("show/hide");
+    }
+
+    private void assertWithinBudget(String name) {
+        final long bytes = mProbes.getBytes(), frames = mProbes.getFrames();
+        assertTrue("nothing was animated", frames > 0);
+        assertTrue(
+                String.format(Locale.ROOT, "%s allocated %d bytes in %d frames of the bar's animation callbacks, budget is %d bytes/frame", name, bytes, frames, mBudget),
+                bytes <= mBudget * frames
+        );
+    }
+
+    // the first frame lays the bar out, which may start more animators (width transitions), so the
+    // closing probe is moved behind them after it; the animation runs its full length after that.
+    private void measure(long durationMillis) {
+        mProbes.close();
+        frames(1);
+        mProbes.close();
+        frames((int) (durationMillis / FRAME_MILLIS));
+        mProbes.end();
+        untilIdle();
+    }
+
+    // a budget only means something while the animation under test is actually running.
+    private static void assertStrictlyBetween(String name, float actual, float from, float to) {
+        assertTrue(
+                String.format(Locale.ROOT, "%s is %f mid-animation, expected strictly between %f and %f", name, actual, from, to),
+                Math.min(from, to) < actual && actual < Math.max(from, to)
+        );
+    }
+
+    private TextView findLabel(@IdRes int idRes) {
+        ViewGroup itemView = (ViewGroup) mBar.findViewById(idRes);
+        for (int i = 0; i < itemView.getChildCount(); i++) {
+            if (itemView.getChildAt(i) instanceof TextView) {
+                return (TextView) itemView.getChildAt(i);
+            }
+        }
+        throw new AssertionError("no label in " + itemView);
+    }
+
+    // runs frames until nothing is queued any more, i.e. every animation has ended.
+    private static void untilIdle() {
+        for (int frames = 0; frame() > 0; frames++) {
+            assertTrue("still animating after " + MAX_FRAMES + " frames", frames < MAX_FRAMES);
+        }
+    }
+
+    private static void frames(int count) {
+        for (int i = 0; i < count; i++) {
+            frame();
+        }
+    }
+
+    // choreographer callbacks are reposted without a delay, so idling the looper would run a whole
+    // animation at once; a frame only runs what was queued before it. Returns the number of tasks run.
+    private static int frame() {
+        final Scheduler scheduler = ShadowLooper.getShadowMainLooper().getScheduler();
+        final int queued = scheduler.size();
+        for (int tasks = queued; tasks > 0; tasks--) {
+            scheduler.runOneTask();
+        }
+        return queued;
+    }
+
+    // two no-op animators around the bar's: the opening one starts counting and the closing one stops it.
+    // Only frames in which both ran are counted.
+    private static class Probes {
+
+        private final AllocationCounter mCounter;
+        private final ValueAnimator mOpen = probe();
+        private final ValueAnimator mClose = probe();
+
+        private boolean mRecording = false;
+        private boolean mOpened = false;
+        private long mFrames;
+
+        Probes(AllocationCounter counter) {
+            mCounter = counter;
+            mOpen.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+                @Override
+                public void onAnimationUpdate(ValueAnimator animation) {
+                    mOpened = true;
+                    mCounter.setCounting(mRecording);
+                }
+            });
+            mClose.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+                @Override
+                public void onAnimationUpdate(ValueAnimator animation) {
+                    mCounter.setCounting(false);
+                    if (mRecording && mOpened) {
+                        mFrames++;
+                    }
+                    mOpened = false;
+                }
+            });
+        }
+
+        private static ValueAnimator probe() {
+            ValueAnimator ret = ValueAnimator.ofFloat(0f, 1f);
+            ret.setDuration(TimeUnit.MINUTES.toMillis(1));
+            return ret;
+        }
+
+        void setRecording(boolean recording) {
+            mRecording = recording;
+        }
+
+        // before the animation under test is started; start() runs the first update right away, which
+        // would count the start itself, so that one is discarded.
+        void begin() {
+            mOpen.start();
+            mCounter.setCounting(false);
+            mOpened = false;
+        }
+
+        // after it was started; restarting moves the probe behind every animator started so far.
+        void close() {
+            mClose.cancel();
+            mClose.start();
+        }
+
+        void end() {
+            mOpen.cancel();
+            mClose.cancel();
+            mCounter.setCounting(false);
+            mOpened = false;
+        }
+
+        long getBytes() {
+            return mCounter.allocatedBytes();
+        }
+
+        long getFrames() {
+            return mFrames;
+        }
+
+    }
+
+    // Robolectric never reports the app window as visible, so the bar and its items would jump straight
+    // to the end of every animation; both take the path they take on a visible window instead.
+    private static class AnimatingBar extends BottomNavigationBarView {
+
+        AnimatingBar(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected boolean shouldAnimate() {
+            return ViewCompat.isAttachedToWindow(this) && isShown();
+        }
+
+        @Override
+        public BottomNavigationBarItemView createItemView(INavigationBarItem item, boolean isChecked) {
+            BottomNavigationBarItemView ret = new AnimatingItemView(getContext());
+            {
+                ret.setLayoutParams(new FrameLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+            }
+            bindItemView(ret, item, isChecked);
+            return ret;
+        }
+
+    }
+
+    private static class AnimatingItemView extends BottomNavigationBarItemView {
+
+        AnimatingItemView(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected boolean shouldAnimate() {
+            return !isAnimationsSuppressed() && ViewCompat.isAttachedToWindow(this) && isShown();
+        }
+
+    }
+
+    private static class Item extends AbsBadgeNavigationBarItem {
+
+        // boxed once, so reading the colors does not show up as the bar's allocation.
+        private static final Integer ACTIVE_COLOR = 0xff3f51b5, INACTIVE_COLOR = 0xff757575;
+
+        @IdRes
+        private final int mIdRes;
+
+        private final String mText;
+
+        Item(@IdRes int idRes) {
+            mIdRes = idRes;
+            mText = "Item " + idRes;
+        }
+
+        @Override
+        public int getIdRes() {
+            return mIdRes;
+        }
+
+        @Override
+        public String getText(boolean isChecked) {
+            return mText;
+        }
+
+        @Override
+        public int getTextColorInt(boolean isChecked) {
+            return isChecked ? ACTIVE_COLOR : INACTIVE_COLOR;
+        }
+
+        @Override
+        public int getDrawableIdRes(boolean isChecked) {
+            return android.R.drawable.ic_menu_add;
+        }
+
+        @Override
+        public Integer getColorInt(boolean isChecked) {
+            return isChecked ? ACTIVE_COLOR : INACTIVE_COLOR;
+        }
+
+    }
+
+}
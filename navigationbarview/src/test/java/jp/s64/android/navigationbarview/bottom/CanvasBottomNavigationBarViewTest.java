@@ -0,0 +1,198 @@
+package jp.s64.android.navigationbarview.bottom;
+
+import android.app.Activity;
+import android.graphics.Rect;
+import android.os.SystemClock;
+import android.support.annotation.IdRes;
+import android.view.Gravity;
+import android.view.MotionEvent;
+import android.view.ViewGroup;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.view.accessibility.AccessibilityNodeProvider;
+import android.widget.FrameLayout;
+import android.widget.RadioButton;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jp.s64.android.navigationbarview.BuildConfig;
+import jp.s64.android.navigationbarview.R;
+import jp.s64.android.navigationbarview.item.AbsNavigationBarItem;
+import jp.s64.android.navigationbarview.view.INavigationBarView;
+
+import static org.junit.Assert.*;
+
+/**
+ * The canvas bar has no item views, so touches and accessibility are resolved against its slots.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class CanvasBottomNavigationBarViewTest {
+
+    private static final int[] IDS = {1, 2, 3, 4};
+
+    private CanvasBottomNavigationBarView mBar;
+    private final List<int[]> mChanges = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        ActivityController<Activity> controller = Robolectric.buildActivity(Activity.class).create();
+        Activity activity = controller.get();
+        activity.setTheme(R.style.Theme_AppCompat_Light);
+        {
+            mBar = new CanvasBottomNavigationBarView(activity);
+            for (int id : IDS) {
+                mBar.add(new Item(id));
+            }
+        }
+        FrameLayout root = new FrameLayout(activity);
+        root.addView(mBar, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.BOTTOM));
+        activity.setContentView(root);
+        controller.start().resume().visible();
+        mBar.check(IDS[0]);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertTrue(mBar.getWidth() > 0 && mBar.getHeight() > 0);
+
+        mBar.setOnCheckChangedListener(new INavigationBarView.OnCheckChangeListener() {
+            @Override
+            public void onCheckChanged(@IdRes int oldIdRes, @IdRes int newIdRes) {
+                mChanges.add(new int[]{oldIdRes, newIdRes});
+            }
+        });
+    }
+
+    @Test
+    public void tapChecksTheItemUnderIt() throws Exception {
+        Rect bounds = boundsOf(IDS[2]);
+
+        touch(MotionEvent.ACTION_DOWN, bounds.centerX(), bounds.centerY());
+        touch(MotionEvent.ACTION_UP, bounds.centerX(), bounds.centerY());
+
+        assertEquals(IDS[2], mBar.getChecked());
+        assertEquals(1, mChanges.size());
+        assertArrayEquals(new int[]{IDS[0], IDS[2]}, mChanges.get(0));
+    }
+
+    @Test
+    public void pressMovedOffTheItemDoesNotCheck() throws Exception {
+        Rect pressed = boundsOf(IDS[1]), released = boundsOf(IDS[2]);
+
+        touch(MotionEvent.ACTION_DOWN, pressed.centerX(), pressed.centerY());
+        touch(MotionEvent.ACTION_MOVE, released.centerX(), released.centerY());
+        touch(MotionEvent.ACTION_UP, released.centerX(), released.centerY());
+
+        assertEquals(IDS[0], mBar.getChecked());
+        assertTrue(mChanges.isEmpty());
+    }
+
+    @Test
+    public void itemsHaveBoundsButNoViews() throws Exception {
+        int right = 0;
+        for (int id : IDS) {
+            assertNull(mBar.getItemView(id));
+            Rect bounds = boundsOf(id);
+            assertTrue(bounds + " overlaps the previous item", bounds.left >= right);
+            assertEquals(0, bounds.top);
+            assertEquals(mBar.getHeight(), bounds.bottom);
+            right = bounds.right;
+        }
+        assertTrue(right <= mBar.getWidth());
+        assertFalse(mBar.getItemBounds(5, new Rect()));
+    }
+
+    @Test
+    public void everyItemIsAVirtualRadioButton() throws Exception {
+        AccessibilityNodeProvider provider = mBar.getAccessibilityNodeProvider();
+        assertNotNull(provider);
+        for (int i = 0; i < IDS.length; i++) {
+            AccessibilityNodeInfo node = provider.createAccessibilityNodeInfo(i);
+            Rect bounds = new Rect();
+            node.getBoundsInParent(bounds);
+
+            assertEquals(RadioButton.class.getName(), String.valueOf(node.getClassName()));
+            assertEquals("Item " + IDS[i], String.valueOf(node.getContentDescription()));
+            assertTrue(node.isCheckable());
+            assertEquals(i == 0, node.isChecked());
+            assertEquals(boundsOf(IDS[i]), bounds);
+        }
+    }
+
+    @Test
+    public void clickActionChecksTheItem() throws Exception {
+        AccessibilityNodeProvider provider = mBar.getAccessibilityNodeProvider();
+
+        assertTrue(provider.performAction(3, AccessibilityNodeInfo.ACTION_CLICK, null));
+
+        assertEquals(IDS[3], mBar.getChecked());
+        assertArrayEquals(new int[]{IDS[0], IDS[3]}, mChanges.get(0));
+        assertTrue(provider.createAccessibilityNodeInfo(3).isChecked());
+        assertFalse(provider.createAccessibilityNodeInfo(0).isChecked());
+    }
+
+    private Rect boundsOf(@IdRes int idRes) {
+        Rect ret = new Rect();
+        assertTrue(mBar.getItemBounds(idRes, ret));
+        assertFalse(ret.isEmpty());
+        return ret;
+    }
+
+    private void touch(int action, float x, float y) {
+        long now = SystemClock.uptimeMillis();
+        MotionEvent event = MotionEvent.obtain(now, now, action, x, y, 0);
+        try {
+            mBar.dispatchTouchEvent(event);
+        } finally {
+            event.recycle();
+        }
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    }
+
+    private static class Item extends AbsNavigationBarItem {
+
+        @IdRes
+        private final int mIdRes;
+
+        private final String mText;
+
+        Item(@IdRes int idRes) {
+            mIdRes = idRes;
+            mText = "Item " + idRes;
+        }
+
+        @Override
+        public int getIdRes() {
+            return mIdRes;
+        }
+
+        @Override
+        public String getText(boolean isChecked) {
+            return mText;
+        }
+
+        @Override
+        public int getTextColorInt(boolean isChecked) {
+            return isChecked ? 0xff3f51b5 : 0xff757575;
+        }
+
+        @Override
+        public int getDrawableIdRes(boolean isChecked) {
+            return android.R.drawable.ic_menu_add;
+        }
+
+        @Override
+        public Integer getColorInt(boolean isChecked) {
+            return isChecked ? 0xff3f51b5 : 0xff757575;
+        }
+
+    }
+
+}
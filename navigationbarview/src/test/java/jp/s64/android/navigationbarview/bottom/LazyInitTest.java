@@ -0,0 +1,153 @@
+package jp.s64.android.navigationbarview.bottom;
+
+import android.app.Activity;
+import android.support.annotation.IdRes;
+import android.util.AttributeSet;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.util.Scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jp.s64.android.navigationbarview.BuildConfig;
+import jp.s64.android.navigationbarview.R;
+import jp.s64.android.navigationbarview.item.AbsNavigationBarItem;
+import jp.s64.android.navigationbarview.view.INavigationBarView;
+
+import static org.junit.Assert.*;
+
+/**
+ * A bar inflated with nbv_lazyInit keeps its items in the list until the first frame was drawn.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LazyInitTest {
+
+    private static final int[] IDS = {1, 2, 3, 4};
+
+    private ActivityController<Activity> mController;
+    private BottomNavigationBarView mBar;
+    private final List<int[]> mChanges = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        mController = Robolectric.buildActivity(Activity.class).create();
+        Activity activity = mController.get();
+        activity.setTheme(R.style.Theme_AppCompat_Light);
+        AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.nbv_lazyInit, "true")
+                .build();
+        {
+            mBar = new BottomNavigationBarView(activity, attrs);
+            mBar.setOnCheckChangedListener(new INavigationBarView.OnCheckChangeListener() {
+                @Override
+                public void onCheckChanged(@IdRes int oldIdRes, @IdRes int newIdRes) {
+                    mChanges.add(new int[]{oldIdRes, newIdRes});
+                }
+            });
+            for (int id : IDS) {
+                mBar.add(new Item(id));
+            }
+            mBar.check(IDS[1]);
+        }
+        FrameLayout root = new FrameLayout(activity);
+        root.addView(mBar, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.BOTTOM));
+        activity.setContentView(root);
+    }
+
+    @Test
+    public void itemsAndChecksWaitForTheFirstDraw() throws Exception {
+        assertFalse(mBar.isInitialized());
+        assertEquals(IDS.length, mBar.size());
+        assertEquals(IDS[1], mBar.getChecked());
+        assertNull(mBar.getItemView(IDS[1]));
+        assertEquals(1, mChanges.size());
+        assertArrayEquals(new int[]{View.NO_ID, IDS[1]}, mChanges.get(0));
+    }
+
+    @Test
+    public void initializesOnceTheFirstFrameIsDrawn() throws Exception {
+        ShadowLooper.pauseMainLooper();
+        mController.start().resume().visible();
+        Scheduler scheduler = ShadowLooper.getShadowMainLooper().getScheduler();
+        while (mBar.getHeight() == 0 && scheduler.runOneTask()) {
+            // until the first traversal
+        }
+        assertTrue("no space reserved for the items", mBar.getHeight() > 0);
+        assertFalse("initialized before the first frame", mBar.isInitialized());
+
+        ShadowLooper.unPauseMainLooper();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertTrue(mBar.isInitialized());
+        assertEquals(IDS[1], mBar.getChecked());
+        for (int id : IDS) {
+            BottomNavigationBarItemView view = mBar.getItemView(id);
+            assertNotNull(view);
+            assertEquals(id == IDS[1], view.isChecked());
+        }
+        assertEquals("the check made before the init is reported once", 1, mChanges.size());
+    }
+
+    @Test
+    public void checkAfterTheInitIsReportedFromThePendingCheck() throws Exception {
+        mController.start().resume().visible();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertTrue(mBar.isInitialized());
+
+        mBar.check(IDS[2]);
+
+        assertEquals(IDS[2], mBar.getChecked());
+        assertEquals(2, mChanges.size());
+        assertArrayEquals(new int[]{IDS[1], IDS[2]}, mChanges.get(1));
+    }
+
+    private static class Item extends AbsNavigationBarItem {
+
+        @IdRes
+        private final int mIdRes;
+
+        Item(@IdRes int idRes) {
+            mIdRes = idRes;
+        }
+
+        @Override
+        public int getIdRes() {
+            return mIdRes;
+        }
+
+        @Override
+        public String getText(boolean isChecked) {
+            return "Item " + mIdRes;
+        }
+
+        @Override
+        public int getTextColorInt(boolean isChecked) {
+            return 0xff757575;
+        }
+
+        @Override
+        public int getDrawableIdRes(boolean isChecked) {
+            return android.R.drawable.ic_menu_add;
+        }
+
+        @Override
+        public Integer getColorInt(boolean isChecked) {
+            return null;
+        }
+
+    }
+
+}
@@ -0,0 +1,143 @@
+package jp.s64.android.navigationbarview.bottom;
+
+import android.app.Activity;
+import android.support.annotation.IdRes;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import jp.s64.android.navigationbarview.BuildConfig;
+import jp.s64.android.navigationbarview.R;
+import jp.s64.android.navigationbarview.item.AbsNavigationBarItem;
+import jp.s64.android.navigationbarview.view.INavigationBarView;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives the behavior's animate listener with the bar at given offsets, as its show/hide animations do.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LiftUpBottomBehaviorTest {
+
+    private static final int HEIGHT = 56;
+
+    private BottomNavigationBarView mBar;
+    private View mTarget;
+    private BottomNavigationBarView.LiftUpBottomBehavior mBehavior;
+
+    @Before
+    public void setUp() throws Exception {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        activity.setTheme(R.style.Theme_AppCompat_Light);
+
+        FrameLayout root = new FrameLayout(activity);
+        mTarget = new View(activity);
+        root.addView(mTarget, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        mBar = new BottomNavigationBarView(activity);
+        for (int id = 1; id <= 3; id++) {
+            mBar.add(new Item(id));
+        }
+        mBar.layout(0, 0, 320, HEIGHT);
+        root.layout(0, 0, 320, 480);
+
+        mBehavior = new BottomNavigationBarView.LiftUpBottomBehavior();
+        mBehavior.setLayoutFree(true);
+    }
+
+    @Test
+    public void showMovesTheContentAndAppliesTheMarginAtRest() throws Exception {
+        INavigationBarView.OnVisibilityAnimateListener listener = mBehavior.getAnimator(mTarget);
+        int restMargin = bottomMargin();
+
+        for (int offset = HEIGHT - 1; offset > 0; offset -= 8) {
+            animate(listener, offset);
+            assertEquals("margin mid-show", restMargin, bottomMargin());
+            assertEquals((offset - HEIGHT) - restMargin, mTarget.getTranslationY(), 0f);
+        }
+        animate(listener, 0);
+
+        assertEquals(-HEIGHT, bottomMargin());
+        assertEquals(0f, mTarget.getTranslationY(), 0f);
+    }
+
+    @Test
+    public void hideKeepsTheMarginUntilTheBarIsHidden() throws Exception {
+        INavigationBarView.OnVisibilityAnimateListener listener = mBehavior.getAnimator(mTarget);
+        animate(listener, 0);
+
+        for (int offset = 1; offset < HEIGHT; offset += 8) {
+            animate(listener, offset);
+            assertEquals("margin mid-hide", -HEIGHT, bottomMargin());
+            assertEquals(offset, mTarget.getTranslationY(), 0f);
+        }
+        animate(listener, HEIGHT);
+
+        assertEquals(0, bottomMargin());
+        assertEquals(0f, mTarget.getTranslationY(), 0f);
+    }
+
+    @Test
+    public void layoutModeAppliesTheMarginEveryFrame() throws Exception {
+        mBehavior.setLayoutFree(false);
+        INavigationBarView.OnVisibilityAnimateListener listener = mBehavior.getAnimator(mTarget);
+
+        animate(listener, 20);
+
+        assertEquals(20 - HEIGHT, bottomMargin());
+        assertEquals(0f, mTarget.getTranslationY(), 0f);
+    }
+
+    private void animate(INavigationBarView.OnVisibilityAnimateListener listener, int offset) {
+        mBar.setTranslationY(offset);
+        listener.onVisibilityAnimate(mBar);
+    }
+
+    private int bottomMargin() {
+        return ((ViewGroup.MarginLayoutParams) mTarget.getLayoutParams()).bottomMargin;
+    }
+
+    private static class Item extends AbsNavigationBarItem {
+
+        @IdRes
+        private final int mIdRes;
+
+        Item(@IdRes int idRes) {
+            mIdRes = idRes;
+        }
+
+        @Override
+        public int getIdRes() {
+            return mIdRes;
+        }
+
+        @Override
+        public String getText(boolean isChecked) {
+            return "Item " + mIdRes;
+        }
+
+        @Override
+        public int getTextColorInt(boolean isChecked) {
+            return 0xff757575;
+        }
+
+        @Override
+        public int getDrawableIdRes(boolean isChecked) {
+            return android.R.drawable.ic_menu_add;
+        }
+
+        @Override
+        public Integer getColorInt(boolean isChecked) {
+            return null;
+        }
+
+    }
+
+}
@@ -0,0 +1,161 @@
+package jp.s64.android.navigationbarview.item;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.support.annotation.IdRes;
+import android.view.Gravity;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import jp.s64.android.navigationbarview.BuildConfig;
+import jp.s64.android.navigationbarview.R;
+import jp.s64.android.navigationbarview.bottom.BottomNavigationBarView;
+
+import static org.junit.Assert.*;
+
+/**
+ * A badge set or posted after its item was bound without one has to reach the bound icon,
+ * since the icon is not updated again until the next check.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class AbsBadgeNavigationBarItemTest {
+
+    private static final int[] IDS = {1, 2, 3, 4};
+
+    private BottomNavigationBarView mBar;
+    private Item mItem;
+
+    @Before
+    public void setUp() throws Exception {
+        ActivityController<Activity> controller = Robolectric.buildActivity(Activity.class).create();
+        Activity activity = controller.get();
+        activity.setTheme(R.style.Theme_AppCompat_Light);
+        {
+            mBar = new BottomNavigationBarView(activity);
+            for (int id : IDS) {
+                mBar.add(new Item(id));
+            }
+            mItem = new Item(5);
+            mBar.add(mItem);
+        }
+        FrameLayout root = new FrameLayout(activity);
+        root.addView(mBar, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.BOTTOM));
+        activity.setContentView(root);
+        controller.start().resume().visible();
+        mBar.check(IDS[0]);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        BadgeIconLayout icon = findIcon(mItem.getIdRes());
+        assertNull(icon.getBadge());
+        Shadows.shadowOf(icon).clearWasInvalidated();
+    }
+
+    @Test
+    public void badgeSetAfterBindIsDrawn() throws Exception {
+        mItem.setBadgeCount(3);
+
+        assertBadgeDrawn("3");
+    }
+
+    @Test
+    public void badgePostedAfterBindIsDrawn() throws Exception {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                mItem.postBadgeCount(3);
+            }
+        });
+        thread.start();
+        thread.join();
+        assertNull(findIcon(mItem.getIdRes()).getBadge());
+
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertBadgeDrawn("3");
+    }
+
+    @Test
+    public void badgeClearedAfterBindIsNotDrawn() throws Exception {
+        mItem.setBadgeCount(3);
+        mItem.setBadgeCount(0);
+
+        BadgeDrawable badge = findIcon(mItem.getIdRes()).getBadge();
+        assertNotNull(badge);
+        assertTrue(badge.isEmpty());
+    }
+
+    private void assertBadgeDrawn(String text) {
+        BadgeIconLayout icon = findIcon(mItem.getIdRes());
+        BadgeDrawable badge = icon.getBadge();
+        assertNotNull(badge);
+        assertEquals(text, String.valueOf(badge.getText()));
+
+        assertTrue(Shadows.shadowOf(icon).wasInvalidated());
+
+        // the layout only places the badge while drawing it; robolectric's View#draw() skips dispatchDraw().
+        icon.dispatchDraw(new Canvas(Bitmap.createBitmap(icon.getWidth(), icon.getHeight(), Bitmap.Config.ARGB_8888)));
+        assertFalse(badge.getBounds().isEmpty());
+    }
+
+    private BadgeIconLayout findIcon(@IdRes int idRes) {
+        ViewGroup itemView = (ViewGroup) mBar.findViewById(idRes);
+        for (int i = 0; i < itemView.getChildCount(); i++) {
+            if (itemView.getChildAt(i) instanceof BadgeIconLayout) {
+                return (BadgeIconLayout) itemView.getChildAt(i);
+            }
+        }
+        throw new AssertionError("no icon in " + itemView);
+    }
+
+    private static class Item extends AbsBadgeNavigationBarItem {
+
+        @IdRes
+        private final int mIdRes;
+
+        private final String mText;
+
+        Item(@IdRes int idRes) {
+            mIdRes = idRes;
+            mText = "Item " + idRes;
+        }
+
+        @Override
+        public int getIdRes() {
+            return mIdRes;
+        }
+
+        @Override
+        public String getText(boolean isChecked) {
+            return mText;
+        }
+
+        @Override
+        public int getTextColorInt(boolean isChecked) {
+            return isChecked ? 0xff3f51b5 : 0xff757575;
+        }
+
+        @Override
+        public int getDrawableIdRes(boolean isChecked) {
+            return android.R.drawable.ic_menu_add;
+        }
+
+        @Override
+        public Integer getColorInt(boolean isChecked) {
+            return isChecked ? 0xff3f51b5 : 0xff757575;
+        }
+
+    }
+
+}